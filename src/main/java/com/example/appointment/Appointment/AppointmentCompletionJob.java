@@ -0,0 +1,26 @@
+package com.example.appointment.Appointment;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending completion of a SCHEDULED appointment, due at the appointment's start time.
+ * Rows are claimed and removed by {@link AppointmentSchedulerService}.
+ */
+@Entity
+@Table(name = "appointment_completion_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AppointmentCompletionJob {
+    @Id
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+}
@@ -0,0 +1,41 @@
+package com.example.appointment.Appointment;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AppointmentCompletionJobRepository extends JpaRepository<AppointmentCompletionJob, Long> {
+
+    // Insert or move the due time of an appointment's job
+    @Modifying
+    @Query(value = "INSERT INTO appointment_completion_jobs (appointment_id, due_at) VALUES (:appointmentId, :dueAt) " +
+            "ON CONFLICT (appointment_id) DO UPDATE SET due_at = EXCLUDED.due_at", nativeQuery = true)
+    void upsert(@Param("appointmentId") Long appointmentId, @Param("dueAt") LocalDateTime dueAt);
+
+    // Lock up to :limit due jobs, skipping rows already claimed by another node
+    @Query(value = "SELECT appointment_id FROM appointment_completion_jobs WHERE due_at <= :now " +
+            "ORDER BY due_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Lock the given jobs if they are due, skipping rows already claimed by another node
+    @Query(value = "SELECT appointment_id FROM appointment_completion_jobs WHERE appointment_id IN (:appointmentIds) " +
+            "AND due_at <= :now FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> claimDueByIds(@Param("appointmentIds") Collection<Long> appointmentIds, @Param("now") LocalDateTime now);
+
+    // Drop due jobs whose appointment is no longer SCHEDULED, left behind when batch completion bypasses the jobs
+    @Modifying
+    @Query(value = "DELETE FROM appointment_completion_jobs j USING appointments a " +
+            "WHERE j.appointment_id = a.id AND j.due_at <= :now AND a.status <> 'SCHEDULED'", nativeQuery = true)
+    int deleteDueWithoutScheduledAppointment(@Param("now") LocalDateTime now);
+
+    // Jobs becoming due within (from, to], used to arm the in-memory timing wheel
+    @Query("SELECT j FROM AppointmentCompletionJob j WHERE j.dueAt > :from AND j.dueAt <= :to")
+    List<AppointmentCompletionJob> findDueBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -8,12 +8,15 @@ import com.example.appointment.User.UserModel;
 import com.example.appointment.User.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -22,6 +25,14 @@ import java.util.List;
 @Slf4j
 public class AppointmentController {
 
+    // Longest span accepted by the range availability endpoint; it also bounds the response,
+    // which is built in memory since every day is computed from one load of the whole range
+    private static final int MAX_RANGE_DAYS = 62;
+
+    // Most occurrences accepted by one bulk reservation
+    @Value("${appointments.bulk-reservation.max-occurrences:200}")
+    private int maxBulkOccurrences = 200;
+
     private final AppointmentService appointmentService;
     private final UserService userService;
     private final NotificationService notificationService;
@@ -45,6 +56,31 @@ public class AppointmentController {
         }
     }
 
+    @GetMapping("/available-slots/range")
+    public ResponseEntity<List<DailyAvailableSlotsDTO>> getAvailableSlotsInRange(
+            @RequestParam Long serviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        log.info("PUBLIC endpoint accessed - /api/appointments/available-slots/range");
+        log.debug("Debug log: Processing request to get available slots for service ID: {} from {} to {}", serviceId, from, to);
+
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            log.warn("Invalid date range {} to {}, must be ordered and span at most {} days", from, to, MAX_RANGE_DAYS);
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            List<DailyAvailableSlotsDTO> days = appointmentService.getAvailableSlotsInRange(serviceId, from, to);
+
+            log.info("Successfully retrieved available slots for service ID: {} on {} days", serviceId, days.size());
+            return ResponseEntity.ok(days);
+        } catch (Exception e) {
+            log.error("Error retrieving available slots for service ID: {} from {} to {} - {}", serviceId, from, to, e.getMessage(), e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
     @PostMapping("/reserve")
     public ResponseEntity<AppointmentReservationResponse> reserveAppointment(
             @RequestBody AppointmentReservationRequest request) {
@@ -94,4 +130,50 @@ public class AppointmentController {
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
+
+    @PostMapping("/reserve/bulk")
+    public ResponseEntity<BulkReservationResponse> reserveAppointments(
+            @RequestBody BulkReservationRequest request) {
+
+        log.info("AUTHENTICATED endpoint accessed - /api/appointments/reserve/bulk");
+        log.debug("Debug log: Processing request to reserve appointments in bulk");
+
+        List<LocalDateTime> dateTimes = new ArrayList<>();
+        if (request.getAppointmentDateTimes() != null) {
+            dateTimes.addAll(request.getAppointmentDateTimes());
+        }
+        if (request.getRecurrence() != null) {
+            dateTimes.addAll(request.getRecurrence().occurrences(maxBulkOccurrences + 1));
+        }
+
+        if (dateTimes.isEmpty() || dateTimes.size() > maxBulkOccurrences || dateTimes.contains(null)) {
+            log.warn("Bulk reservation needs between 1 and {} occurrences, got {}", maxBulkOccurrences, dateTimes.size());
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            log.debug("Attempting to reserve {} appointments for service ID: {}, customer ID: {}",
+                    dateTimes.size(), request.getServiceId(), request.getCustomerId());
+
+            BulkReservationResponse response = appointmentService.reserveAppointments(
+                request.getServiceId(),
+                request.getCustomerId(),
+                dateTimes
+            );
+
+            log.info("Bulk reservation finished - {} of {} occurrences reserved", response.getReserved(), response.getRequested());
+
+            if (response.getReserved() > 0) {
+                List<UserModel> admins = userService.findByRole(UserRole.ADMIN);
+                for (UserModel admin : admins) {
+                    notificationService.createNotification(admin, NotificationType.ORDERED,
+                            "order to reserve " + response.getReserved() + " new appointments in service : " + request.getServiceId());
+                }
+            }
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error reserving appointments in bulk: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).build();
+        }
+    }
 }
\ No newline at end of file
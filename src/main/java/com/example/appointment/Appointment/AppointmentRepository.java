@@ -4,8 +4,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +48,28 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
                                            @Param("startOfDay") LocalDateTime startOfDay,
                                            @Param("endOfDay") LocalDateTime endOfDay);
 
+    // Booked time ranges of several employees starting in [rangeStart, rangeEnd), without loading customers or employees
+    @Query("SELECT new com.example.appointment.Appointment.BookedInterval(a.id, a.employee.id, a.from, a.to) FROM Appointment a WHERE a.employee.id IN :employeeIds AND a.from >= :rangeStart AND a.from < :rangeEnd AND a.status != 'CANCELLED'")
+    List<BookedInterval> findBookedIntervalsByEmployeeIdsAndRange(@Param("employeeIds") Collection<Long> employeeIds,
+                                                                  @Param("rangeStart") LocalDateTime rangeStart,
+                                                                  @Param("rangeEnd") LocalDateTime rangeEnd);
+
+    // Complete up to :limit due SCHEDULED appointments in one statement, skipping rows locked by another node
+    @Transactional
+    @Query(value = "UPDATE appointments SET status = 'COMPLETED' WHERE id IN (" +
+            "SELECT id FROM appointments WHERE status = 'SCHEDULED' AND start_time <= :now " +
+            "ORDER BY start_time LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS \"id\", customer_id AS \"customerId\", start_time AS \"startTime\"", nativeQuery = true)
+    List<CompletedAppointment> completeDueAppointments(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Same as completeDueAppointments, restricted to the given appointments
+    @Transactional
+    @Query(value = "UPDATE appointments SET status = 'COMPLETED' WHERE id IN (" +
+            "SELECT id FROM appointments WHERE id IN (:ids) AND status = 'SCHEDULED' AND start_time <= :now " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS \"id\", customer_id AS \"customerId\", start_time AS \"startTime\"", nativeQuery = true)
+    List<CompletedAppointment> completeDueAppointmentsByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
     // Admin methods - get all appointments
     @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.customer LEFT JOIN FETCH a.employee")
     List<Appointment> findAllAppointments();
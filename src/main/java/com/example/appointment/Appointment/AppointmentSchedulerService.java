@@ -1,150 +1,280 @@
 package com.example.appointment.Appointment;
 
 import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.Notifications.NotificationEntity;
 import com.example.appointment.Notifications.NotificationService;
-import lombok.RequiredArgsConstructor;
+import com.example.appointment.User.UserModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Completes SCHEDULED appointments once their start time has passed.
+ *
+ * Due times live in the appointment_completion_jobs table, so pending completions survive
+ * restarts and memory use does not grow with the number of scheduled appointments. Every
+ * instance polls the table; rows are claimed with FOR UPDATE SKIP LOCKED, so each job is
+ * processed by exactly one node.
+ *
+ * Polling alone would complete an appointment up to one poll interval late, so each poll also
+ * arms a {@link HashedTimingWheel} with the jobs due before the next poll. The wheel fires them
+ * on time and only ever holds that short window, not every scheduled appointment.
+ *
+ * In batch mode (the default) due appointments are completed with one UPDATE ... RETURNING per
+ * batch instead of loading and saving each one, and their notifications are inserted together.
+ */
 @Service
 @Slf4j
 public class AppointmentSchedulerService {
 
     private final AppointmentService appointmentService;
     private final NotificationService notificationService;
+    private final AppointmentCompletionJobRepository completionJobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate jobTransactionTemplate;
+    private final HashedTimingWheel timingWheel;
+    private final Counter completedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchTimer;
+
+    // Jobs claimed and completed per transaction
+    @Value("${appointments.completion.batch-size:100}")
+    private int batchSize = 100;
+
+    // Jobs due within this window after a poll are armed in the timing wheel
+    @Value("${appointments.completion.poll-interval-ms:15000}")
+    private long pollIntervalMillis = 15000;
+
+    // "batch" completes due appointments set-based, "per-appointment" runs runAppointmentJob for each
+    @Value("${appointments.completion.mode:batch}")
+    private String completionMode = "batch";
 
     public AppointmentSchedulerService(@org.springframework.beans.factory.annotation.Autowired @org.springframework.context.annotation.Lazy AppointmentService appointmentService,
-                                      NotificationService notificationService) {
+                                      NotificationService notificationService,
+                                      AppointmentCompletionJobRepository completionJobRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${appointments.completion.wheel.tick-ms:200}") long tickMillis,
+                                      @Value("${appointments.completion.wheel.size:512}") int wheelSize) {
         this.appointmentService = appointmentService;
         this.notificationService = notificationService;
+        this.completionJobRepository = completionJobRepository;
+        this.transactionTemplate = transactionTemplate;
+        // Each per-appointment job commits or fails on its own, inside the claiming transaction
+        this.jobTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.jobTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.timingWheel = new HashedTimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        this.completedCounter = Counter.builder("appointments.completion.completed")
+                .description("Appointments completed by the completion scheduler")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("appointments.completion.batch.size")
+                .description("Appointments completed per batch")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("appointments.completion.batch.duration")
+                .description("Time to complete one batch, including notification inserts and pushes")
+                .register(meterRegistry);
     }
-    
-    // In-memory storage for scheduled tasks (in a production environment, you might want to use a database)
-    private final ConcurrentHashMap<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
-    
-    // Thread pool for scheduling tasks
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
 
     /**
      * Schedule a job to run when the appointment time arrives
      * @param appointment The appointment to schedule
      */
+    @Transactional
     public void scheduleAppointmentJob(Appointment appointment) {
         if (appointment.getFrom() == null) {
             log.warn("Cannot schedule appointment job: appointment {} has no start time", appointment.getId());
             return;
         }
 
-        // Cancel any existing scheduled task for this appointment
-        cancelScheduledJob(appointment.getId());
-
-        // Calculate delay until appointment time
-        long delay = calculateDelay(appointment.getFrom());
-        
-        if (delay <= 0) {
-            // Appointment time has already passed, run immediately
-            log.warn("Appointment {} time has already passed, running immediately", appointment.getId());
-            runAppointmentJob(appointment.getId());
-            return;
+        // Replaces any existing job for this appointment; jobs due before the next poll go into the wheel too
+        completionJobRepository.upsert(appointment.getId(), appointment.getFrom());
+        if (appointment.getFrom().isBefore(LocalDateTime.now().plus(Duration.ofMillis(pollIntervalMillis)))) {
+            timingWheel.schedule(appointment.getId(), toEpochMillis(appointment.getFrom()));
+        } else {
+            timingWheel.cancel(appointment.getId());
         }
 
-        // Schedule the task
-        ScheduledFuture<?> scheduledTask = scheduler.schedule(() -> runAppointmentJob(appointment.getId()), delay, TimeUnit.MILLISECONDS);
-        scheduledTasks.put(appointment.getId(), scheduledTask);
-        
-        log.info("Scheduled appointment job for appointment ID: {} at time: {}, delay: {} ms", 
-                 appointment.getId(), appointment.getFrom(), delay);
+        log.info("Scheduled appointment job for appointment ID: {} at time: {}", appointment.getId(), appointment.getFrom());
     }
 
     /**
      * Cancel a scheduled job for an appointment
      * @param appointmentId The ID of the appointment to cancel
      */
+    @Transactional
     public void cancelScheduledJob(Long appointmentId) {
-        ScheduledFuture<?> existingTask = scheduledTasks.get(appointmentId);
-        if (existingTask != null && !existingTask.isDone()) {
-            existingTask.cancel(false); // false means don't interrupt if running
-            scheduledTasks.remove(appointmentId);
+        timingWheel.cancel(appointmentId);
+        if (completionJobRepository.existsById(appointmentId)) {
+            completionJobRepository.deleteById(appointmentId);
             log.info("Cancelled scheduled job for appointment ID: {}", appointmentId);
         }
     }
 
     /**
-     * Calculate the delay in milliseconds until the appointment time
-     * @param appointmentTime The time of the appointment
-     * @return Delay in milliseconds
+     * Claim due jobs in batches and complete their appointments until none are left,
+     * then arm the timing wheel with the jobs due before the next poll.
+     * A failing batch is rolled back and retried on the next poll.
      */
-    private long calculateDelay(LocalDateTime appointmentTime) {
+    @Scheduled(fixedDelayString = "${appointments.completion.poll-interval-ms:15000}")
+    public void processDueJobs() {
+        int claimed;
+        do {
+            try {
+                claimed = isBatchMode()
+                    ? completeSetBased(() -> appointmentService.getAppointmentRepository().completeDueAppointments(LocalDateTime.now(), batchSize))
+                    : completeClaimed(() -> completionJobRepository.claimDue(LocalDateTime.now(), batchSize));
+            } catch (Exception e) {
+                log.error("Error processing due appointment jobs, will retry on next poll", e);
+                return;
+            }
+            if (claimed > 0) {
+                log.debug("Processed {} due appointment jobs", claimed);
+            }
+        } while (claimed == batchSize);
+
         LocalDateTime now = LocalDateTime.now();
-        if (appointmentTime.isBefore(now)) {
-            return 0; // Time has already passed
+        if (isBatchMode()) {
+            transactionTemplate.executeWithoutResult(status -> completionJobRepository.deleteDueWithoutScheduledAppointment(now));
+        }
+        for (AppointmentCompletionJob job : completionJobRepository.findDueBetween(now, now.plus(Duration.ofMillis(pollIntervalMillis)))) {
+            timingWheel.schedule(job.getAppointmentId(), toEpochMillis(job.getDueAt()));
         }
-        
-        long delaySeconds = java.time.Duration.between(now, appointmentTime).getSeconds();
-        return delaySeconds * 1000; // Convert to milliseconds
     }
 
     /**
-     * The actual job that runs when the appointment time arrives
-     * @param appointmentId The ID of the appointment to process
+     * Complete the jobs whose deadline the timing wheel has reached. Jobs already taken by
+     * another node are skipped by the claim.
      */
-    @Async
-    public void runAppointmentJob(Long appointmentId) {
-        try {
-            // Fetch the appointment from the database using the repository directly to avoid circular dependency
-            Optional<Appointment> appointmentOpt = appointmentService.getAppointmentRepository().findById(appointmentId);
-
-            if (appointmentOpt.isEmpty()) {
-                log.error("Appointment with ID {} not found", appointmentId);
-                return;
+    @Scheduled(fixedDelayString = "${appointments.completion.wheel.tick-ms:200}")
+    public void advanceTimingWheel() {
+        List<Long> expired = timingWheel.advanceTo(System.currentTimeMillis());
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<Long> appointmentIds = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            try {
+                if (isBatchMode()) {
+                    completeSetBased(() -> appointmentService.getAppointmentRepository()
+                        .completeDueAppointmentsByIds(appointmentIds, LocalDateTime.now()));
+                } else {
+                    completeClaimed(() -> completionJobRepository.claimDueByIds(appointmentIds, LocalDateTime.now()));
+                }
+            } catch (Exception e) {
+                log.error("Error completing appointment jobs from the timing wheel, the next poll will retry them", e);
             }
+        }
+    }
 
-            Appointment appointment = appointmentOpt.get();
-
-            // Check if the appointment is still scheduled (not cancelled)
-            if (appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
-                log.info("Appointment {} is no longer scheduled (status: {}), skipping job",
-                         appointmentId, appointment.getStatus());
-                return;
+    // Complete the claimed jobs' appointments, each in its own transaction, and delete the jobs
+    // while they are still locked. A failing appointment is logged and its job deleted like the
+    // others, so it cannot be claimed first on every poll and block the queue.
+    private int completeClaimed(Supplier<List<Long>> claim) {
+        return transactionTemplate.execute(status -> {
+            List<Long> appointmentIds = claim.get();
+            for (Long appointmentId : appointmentIds) {
+                try {
+                    jobTransactionTemplate.executeWithoutResult(jobStatus -> runAppointmentJob(appointmentId));
+                } catch (Exception e) {
+                    log.error("Error running appointment job for appointment ID: {}", appointmentId, e);
+                }
             }
+            completionJobRepository.deleteAllByIdInBatch(appointmentIds);
+            return appointmentIds.size();
+        });
+    }
 
-            // Update appointment status to COMPLETED
-            appointmentService.updateAppointmentStatus(appointmentId, Appointment.AppointmentStatus.COMPLETED);
+    // Complete a batch with one UPDATE ... RETURNING and write the customer notifications to the
+    // outbox in the same transaction; the outbox worker inserts and pushes them after the commit
+    private int completeSetBased(Supplier<List<CompletedAppointment>> complete) {
+        long started = System.nanoTime();
+        int completedCount = transactionTemplate.execute(status -> {
+            List<CompletedAppointment> completed = complete.get();
+            if (completed.isEmpty()) {
+                return 0;
+            }
+            completionJobRepository.deleteAllByIdInBatch(completed.stream().map(CompletedAppointment::getId).toList());
 
-            // Send notification to the customer
-            String message = String.format("Your appointment scheduled for %s has been completed.",
-                                          appointment.getFrom().toString());
-            notificationService.createNotification(appointment.getCustomer(), NotificationType.EXECUTED, message);
+            List<NotificationEntity> pending = new ArrayList<>(completed.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (CompletedAppointment appointment : completed) {
+                UserModel customer = new UserModel();
+                customer.setId(appointment.getCustomerId());
 
-            log.info("Appointment {} completed successfully and customer notified", appointmentId);
+                NotificationEntity notification = new NotificationEntity();
+                notification.setUser(customer);
+                notification.setType(NotificationType.EXECUTED);
+                notification.setData(String.format("Your appointment scheduled for %s has been completed.",
+                                                   appointment.getStartTime().toString()));
+                notification.setCreatedAt(now);
+                pending.add(notification);
+            }
+            notificationService.createNotifications(pending);
+            return completed.size();
+        });
 
-        } catch (Exception e) {
-            log.error("Error running appointment job for appointment ID: {}", appointmentId, e);
+        if (completedCount > 0) {
+            completedCounter.increment(completedCount);
+            batchSizeSummary.record(completedCount);
+            batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.info("Completed {} appointments in one batch", completedCount);
         }
+        return completedCount;
+    }
+
+    private boolean isBatchMode() {
+        return "batch".equalsIgnoreCase(completionMode);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     /**
-     * Periodically clean up completed or cancelled tasks from the scheduledTasks map
+     * The actual job that runs when the appointment time arrives
+     * @param appointmentId The ID of the appointment to process
      */
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    public void cleanupCompletedTasks() {
-        scheduledTasks.entrySet().removeIf(entry -> {
-            ScheduledFuture<?> task = entry.getValue();
-            if (task.isDone()) {
-                log.debug("Removing completed task for appointment ID: {}", entry.getKey());
-                return true;
-            }
-            return false;
-        });
+    public void runAppointmentJob(Long appointmentId) {
+        // Fetch the appointment from the database using the repository directly to avoid circular dependency
+        Optional<Appointment> appointmentOpt = appointmentService.getAppointmentRepository().findById(appointmentId);
+
+        if (appointmentOpt.isEmpty()) {
+            log.error("Appointment with ID {} not found", appointmentId);
+            return;
+        }
+
+        Appointment appointment = appointmentOpt.get();
+
+        // Check if the appointment is still scheduled (not cancelled)
+        if (appointment.getStatus() != Appointment.AppointmentStatus.SCHEDULED) {
+            log.info("Appointment {} is no longer scheduled (status: {}), skipping job",
+                     appointmentId, appointment.getStatus());
+            return;
+        }
+
+        // Update appointment status to COMPLETED
+        appointmentService.updateAppointmentStatus(appointmentId, Appointment.AppointmentStatus.COMPLETED);
+
+        // Send notification to the customer
+        String message = String.format("Your appointment scheduled for %s has been completed.",
+                                      appointment.getFrom().toString());
+        notificationService.createNotification(appointment.getCustomer(), NotificationType.EXECUTED, message);
+        completedCounter.increment();
+
+        log.info("Appointment {} completed successfully and customer notified", appointmentId);
     }
-}
\ No newline at end of file
+}
@@ -9,40 +9,74 @@ import com.example.appointment.User.UserModel;
 import com.example.appointment.WorkingSchedule.Working_schedule;
 import com.example.appointment.WorkingSchedule.Working_scheduleRepository;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.sql.SQLException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 
 public class AppointmentService {
 
+    // Exclusion constraint from V12 that rejects overlapping active appointments per employee
+    private static final String NO_OVERLAP_CONSTRAINT = "ex_appointments_employee_no_overlap";
+
     private final AppointmentRepository appointmentRepository;
     private final ServiceRepository serviceRepository;
     private final Working_scheduleRepository workingScheduleRepository;
     private final HolidayRepository holidayRepository;
     private final NotificationService notificationService;
     private final AppointmentSchedulerService appointmentSchedulerService;
+    private final EmployeeDayIntervalIndex intervalIndex;
+    private final ForkJoinPool slotComputationPool;
+    private final ReservationLocks reservationLocks;
+
+    private static final Comparator<SlotEngine.Window> WINDOW_ORDER = Comparator
+            .comparingLong(SlotEngine.Window::employeeId)
+            .thenComparingInt(SlotEngine.Window::startMinute);
+
+    // Below this many employee windows the slots are computed on the calling thread
+    @Value("${appointments.slot-computation.parallel-threshold:16}")
+    private int parallelThreshold = 16;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
                             ServiceRepository serviceRepository,
                             Working_scheduleRepository workingScheduleRepository,
                             HolidayRepository holidayRepository,
                             NotificationService notificationService,
-                            @org.springframework.context.annotation.Lazy AppointmentSchedulerService appointmentSchedulerService) {
+                            @org.springframework.context.annotation.Lazy AppointmentSchedulerService appointmentSchedulerService,
+                            EmployeeDayIntervalIndex intervalIndex,
+                            ForkJoinPool slotComputationPool,
+                            ReservationLocks reservationLocks) {
         this.appointmentRepository = appointmentRepository;
         this.serviceRepository = serviceRepository;
         this.workingScheduleRepository = workingScheduleRepository;
         this.holidayRepository = holidayRepository;
         this.notificationService = notificationService;
         this.appointmentSchedulerService = appointmentSchedulerService;
+        this.intervalIndex = intervalIndex;
+        this.slotComputationPool = slotComputationPool;
+        this.reservationLocks = reservationLocks;
     }
 
     public List<Appointment> getAppointmentsByCustomerId(Long customerId) {
@@ -92,17 +126,20 @@ public class AppointmentService {
             Appointment appointment = appointmentOpt.get();
             Appointment.AppointmentStatus oldStatus = appointment.getStatus();
 
-            // Handle scheduling/cancellation of appointment jobs
-            if (newStatus == Appointment.AppointmentStatus.SCHEDULED && oldStatus != Appointment.AppointmentStatus.SCHEDULED) {
-                // When accepting an appointment, schedule the completion job
-                appointmentSchedulerService.scheduleAppointmentJob(appointment);
-            } else if (newStatus == Appointment.AppointmentStatus.CANCELLED && oldStatus != Appointment.AppointmentStatus.CANCELLED) {
-                // When cancelling an appointment, cancel the scheduled job
+            // When cancelling an appointment, cancel the scheduled job
+            if (newStatus == Appointment.AppointmentStatus.CANCELLED && oldStatus != Appointment.AppointmentStatus.CANCELLED) {
                 appointmentSchedulerService.cancelScheduledJob(appointmentId);
             }
 
             appointment.setStatus(newStatus);
             Appointment savedAppointment = appointmentRepository.save(appointment);
+            intervalIndex.onSaved(savedAppointment);
+
+            // When accepting an appointment, schedule the completion job once the SCHEDULED status is stored,
+            // since a job that is already due may run right away
+            if (newStatus == Appointment.AppointmentStatus.SCHEDULED && oldStatus != Appointment.AppointmentStatus.SCHEDULED) {
+                appointmentSchedulerService.scheduleAppointmentJob(savedAppointment);
+            }
 
             if (newStatus == Appointment.AppointmentStatus.SCHEDULED && oldStatus != Appointment.AppointmentStatus.SCHEDULED) {
                 String message = "Your appointment has been accepted.";
@@ -127,7 +164,9 @@ public class AppointmentService {
             // Cancel the scheduled job if it exists
             appointmentSchedulerService.cancelScheduledJob(appointmentId);
             appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
-            return appointmentRepository.save(appointment);
+            Appointment savedAppointment = appointmentRepository.save(appointment);
+            intervalIndex.onSaved(savedAppointment);
+            return savedAppointment;
         }
         return null;
     }
@@ -139,113 +178,132 @@ public class AppointmentService {
         if (service == null) {
             return new ArrayList<>();
         }
+        return computeDaySlots(service, date).toDTOs();
+    }
 
+    // Free slots of one service on one day as packed minutes; DTOs are only built by callers that return them
+    private SlotEngine.DaySlots computeDaySlots(com.example.appointment.Services.Service service, LocalDate date) {
+        // No slots can be booked on a holiday
+        if (!holidayRepository.findByHolidayDate(date).isEmpty()) {
+            return SlotEngine.DaySlots.empty(date);
+        }
+        return computeWorkingDaySlots(service, date);
+    }
+
+    // Same as computeDaySlots for a date the caller already knows is not a holiday
+    private SlotEngine.DaySlots computeWorkingDaySlots(com.example.appointment.Services.Service service, LocalDate date) {
         // Get the day of week for the requested date
         DayOfWeek dayOfWeek = date.getDayOfWeek();
 
         // Get all working schedules for employees who provide this service on the requested day
-        List<Working_schedule> workingSchedules = workingScheduleRepository.findByServiceIdAndDayWithEmployees(serviceId, dayOfWeek);
+        List<Working_schedule> workingSchedules = workingScheduleRepository.findByServiceIdAndDayWithEmployees(service.getId(), dayOfWeek);
+
+        // One working window per employee linked to both the service and the day
+        List<SlotEngine.Window> windows = new ArrayList<>();
+        for (Working_schedule schedule : workingSchedules) {
+            addWindows(schedule, windows);
+        }
 
-        // Get all existing appointments for this service on the requested date
+        if (windows.isEmpty()) {
+            return SlotEngine.DaySlots.empty(date);
+        }
+        windows.sort(WINDOW_ORDER);
+
+        // Booked intervals come from the in-memory index, misses are loaded in one query
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1);
+        Map<Long, EmployeeDayIntervalIndex.DayIntervals> bookedByEmployee = intervalIndex.lookup(
+            employeeIdsOf(windows), date,
+            employeeIds -> appointmentRepository.findBookedIntervalsByEmployeeIdsAndRange(employeeIds, startOfDay, endOfDay));
+
+        return computeSlotsForDay(date, windows, service.getDuration(), bookedByEmployee);
+    }
+
+    /**
+     * Get available time slots for a service on every day of a date range.
+     * Loads the service, its schedules, the holidays and the booked intervals of the whole
+     * window in a constant number of queries. Each day matches what getAvailableSlots returns.
+     * @param serviceId The ID of the service
+     * @param from First day of the range, inclusive
+     * @param to Last day of the range, inclusive
+     * @return One entry per day of the range, in date order
+     */
+    public List<DailyAvailableSlotsDTO> getAvailableSlotsInRange(Long serviceId, LocalDate from, LocalDate to) {
+        com.example.appointment.Services.Service service = serviceRepository.findById(serviceId).orElse(null);
+        if (service == null) {
+            return new ArrayList<>();
+        }
 
-        List<Appointment> existingAppointments = appointmentRepository
-            .findByServiceIdAndDate(serviceId, startOfDay, endOfDay);
+        Set<LocalDate> holidays = holidayRepository.findByHolidayDateBetween(from, to).stream()
+            .map(com.example.appointment.Holiday.Holiday::getHolidayDate)
+            .collect(Collectors.toSet());
 
-        // Calculate available time slots based on working schedules and existing appointments
-        List<AvailableSlotDTO> availableSlots = new ArrayList<>();
+        Map<DayOfWeek, List<SlotEngine.Window>> windowsByDay = loadWindowsByDay(serviceId);
 
-        for (Working_schedule schedule : workingSchedules) {
-            LocalTime startTime = schedule.getStartTime();
-            LocalTime endTime = schedule.getEndTime();
-            Long employeeId = schedule.getEmployees().stream()
-                .findFirst()
-                .map(UserModel::getId)
-                .orElse(null);
-
-            if (employeeId != null) {
-                // Get appointments for this specific employee on the requested date
-                List<Appointment> employeeAppointments = existingAppointments.stream()
-                    .filter(app -> app.getEmployee().getId().equals(employeeId))
-                    .collect(Collectors.toList());
-
-                // Calculate available slots by subtracting booked appointments from working hours
-                List<AvailableSlotDTO> employeeSlots = calculateAvailableSlots(
-                    date, startTime, endTime, employeeAppointments, service.getDuration(), employeeId);
-
-                availableSlots.addAll(employeeSlots);
+        // Employees to look up for each bookable day of the range
+        Map<LocalDate, Set<Long>> employeesByDate = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            List<SlotEngine.Window> windows = windowsByDay.get(date.getDayOfWeek());
+            if (!holidays.contains(date) && windows != null && !windows.isEmpty()) {
+                employeesByDate.put(date, employeeIdsOf(windows));
             }
         }
 
-        return availableSlots;
+        Map<LocalDate, Map<Long, EmployeeDayIntervalIndex.DayIntervals>> booked = employeesByDate.isEmpty()
+            ? Map.of()
+            : intervalIndex.lookupRange(employeesByDate,
+                employeeIds -> appointmentRepository.findBookedIntervalsByEmployeeIdsAndRange(
+                    employeeIds, from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+
+        List<DailyAvailableSlotsDTO> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            List<AvailableSlotDTO> slots = employeesByDate.containsKey(date)
+                ? computeSlotsForDay(date, windowsByDay.get(date.getDayOfWeek()), service.getDuration(), booked.get(date)).toDTOs()
+                : new ArrayList<>();
+            days.add(new DailyAvailableSlotsDTO(date, slots));
+        }
+        return days;
     }
 
-    // Helper method to calculate available time slots - from jalal
-    private List<AvailableSlotDTO> calculateAvailableSlots(
-            LocalDate date,
-            LocalTime scheduleStart,
-            LocalTime scheduleEnd,
-            List<Appointment> bookedAppointments,
-            int serviceDuration,
-            Long employeeId) {
-
-        List<AvailableSlotDTO> availableSlots = new ArrayList<>();
-
-        // Sort booked appointments by start time
-        bookedAppointments.sort((a, b) -> a.getFrom().compareTo(b.getFrom()));
-
-        LocalTime currentTime = scheduleStart;
-
-        // Process each booked appointment to find available slots before it
-        for (Appointment appointment : bookedAppointments) {
-            LocalTime appointmentStart = appointment.getFrom().toLocalTime();
-            LocalTime appointmentEnd = appointment.getTo().toLocalTime();
-
-            // Check if there's available time before this appointment
-            if (currentTime.isBefore(appointmentStart)) {
-                // Add available slots from current time to appointment start
-                while (!currentTime.isAfter(appointmentStart.minusMinutes(serviceDuration)) &&
-                       currentTime.plusMinutes(serviceDuration).compareTo(appointmentStart) <= 0) {
-                    LocalDateTime slotStart = LocalDateTime.of(date, currentTime);
-                    LocalDateTime slotEnd = slotStart.plusMinutes(serviceDuration);
-
-                    if (slotEnd.compareTo(LocalDateTime.of(date, appointmentStart)) <= 0) {
-                        UserModel employee = new UserModel();
-                        employee.setId(employeeId);
-                        String employeeName = "Employee " + employeeId; // In a real implementation, you'd fetch the actual name
-
-                        availableSlots.add(new AvailableSlotDTO(slotStart, slotEnd, employeeId, employeeName));
-                        currentTime = currentTime.plusMinutes(serviceDuration);
-                    } else {
-                        break;
-                    }
-                }
-            }
+    // Working windows of every employee providing the service, grouped by day of week
+    private Map<DayOfWeek, List<SlotEngine.Window>> loadWindowsByDay(Long serviceId) {
+        Map<DayOfWeek, List<SlotEngine.Window>> windowsByDay = new EnumMap<>(DayOfWeek.class);
+        for (Working_schedule schedule : workingScheduleRepository.findByServiceIdWithEmployees(serviceId)) {
+            addWindows(schedule, windowsByDay.computeIfAbsent(schedule.getDay(), day -> new ArrayList<>()));
+        }
+        windowsByDay.values().forEach(windows -> windows.sort(WINDOW_ORDER));
+        return windowsByDay;
+    }
 
-            // Move current time to after this appointment
-            currentTime = appointmentEnd;
+    private static void addWindows(Working_schedule schedule, List<SlotEngine.Window> windows) {
+        int startMinute = schedule.getStartTime().toSecondOfDay() / 60;
+        int endMinute = schedule.getEndTime().toSecondOfDay() / 60;
+        for (UserModel employee : schedule.getEmployees()) {
+            windows.add(new SlotEngine.Window(employee.getId(), startMinute, endMinute));
         }
+    }
 
-        // Add remaining available slots after the last appointment
-        while (!currentTime.isAfter(scheduleEnd.minusMinutes(serviceDuration)) &&
-               currentTime.plusMinutes(serviceDuration).compareTo(scheduleEnd) <= 0) {
-            LocalDateTime slotStart = LocalDateTime.of(date, currentTime);
-            LocalDateTime slotEnd = slotStart.plusMinutes(serviceDuration);
-
-            if (slotEnd.compareTo(LocalDateTime.of(date, scheduleEnd)) <= 0) {
-                UserModel employee = new UserModel();
-                employee.setId(employeeId);
-                String employeeName = "Employee " + employeeId; // In a real implementation, you'd fetch the actual name
-
-                availableSlots.add(new AvailableSlotDTO(slotStart, slotEnd, employeeId, employeeName));
-                currentTime = currentTime.plusMinutes(serviceDuration);
-            } else {
-                break;
-            }
+    private static Set<Long> employeeIdsOf(List<SlotEngine.Window> windows) {
+        return windows.stream().map(SlotEngine.Window::employeeId).collect(Collectors.toSet());
+    }
+
+    // Subtract booked intervals from every working window of one day and merge the results
+    private SlotEngine.DaySlots computeSlotsForDay(LocalDate date, List<SlotEngine.Window> windows, int serviceDuration,
+                                                   Map<Long, EmployeeDayIntervalIndex.DayIntervals> bookedByEmployee) {
+        Function<SlotEngine.Window, int[]> computeWindow = window ->
+            SlotEngine.freeStarts(window, bookedByEmployee.get(window.employeeId()), serviceDuration);
+
+        List<int[]> startsPerWindow;
+        if (windows.size() < parallelThreshold) {
+            startsPerWindow = windows.stream().map(computeWindow).toList();
+        } else {
+            // Parallel stream inside the dedicated pool so request threads never share the common pool
+            startsPerWindow = slotComputationPool
+                .submit(() -> windows.parallelStream().map(computeWindow).toList())
+                .join();
         }
 
-        return availableSlots;
+        return SlotEngine.merge(date, windows, startsPerWindow, serviceDuration);
     }
 
     public AppointmentReservationResponse reserveAppointment(Long serviceId, Long customerId, LocalDateTime appointmentDateTime) {
@@ -262,81 +320,238 @@ public class AppointmentService {
             return AppointmentReservationResponse.failure("Cannot book appointment on a holiday");
         }
 
-        // Get available slots for the requested service and date
-        List<AvailableSlotDTO> availableSlots = getAvailableSlots(serviceId, appointmentDate);
-
-        // Check if the requested time slot exactly matches an available slot
-        AvailableSlotDTO matchingSlot = availableSlots.stream()
-            .filter(slot -> slot.getStartTime().equals(appointmentDateTime))
-            .findFirst()
-            .orElse(null);
-
-        if (matchingSlot == null) {
-            return AppointmentReservationResponse.failure("Requested time slot is not available or does not match an exact available slot");
+        // Check if the requested time exactly matches the start of an available slot
+        LocalTime requestedTime = appointmentDateTime.toLocalTime();
+        Long employeeId = null;
+        if (requestedTime.getSecond() == 0 && requestedTime.getNano() == 0) {
+            employeeId = computeWorkingDaySlots(service, appointmentDate).employeeAt(requestedTime.toSecondOfDay() / 60);
         }
 
-        // Use the employee from the matching slot
-        Long employeeId = matchingSlot.getEmployeeId();
         if (employeeId == null) {
-            return AppointmentReservationResponse.failure("No employee assigned to the requested time slot");
+            return AppointmentReservationResponse.failure("Requested time slot is not available or does not match an exact available slot");
         }
 
-        // Double-check: ensure no appointment (including pending) exists for this employee at this time
-        LocalDateTime startOfDay = appointmentDate.atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
-        List<Appointment> existingAppointments = appointmentRepository
-            .findByEmployeeIdAndDate(employeeId, startOfDay, endOfDay);
-
+        // Serialize reservations of this employee on this day so the check below and the insert are atomic.
+        // The lock is held until save returns, which commits since this method is not transactional.
         LocalDateTime requestedEndDateTime = appointmentDateTime.plusMinutes(service.getDuration());
-        for (Appointment existingAppointment : existingAppointments) {
-            // Check for overlap regardless of status (including PENDING)
-            LocalDateTime existingStart = existingAppointment.getFrom();
-            LocalDateTime existingEnd = existingAppointment.getTo();
+        ReentrantLock lock = reservationLocks.lockFor(employeeId, appointmentDate);
+        lock.lock();
+        try {
+            // Double-check: ensure no appointment (including pending) exists for this employee at this time
+            LocalDateTime startOfDay = appointmentDate.atStartOfDay();
+            LocalDateTime endOfDay = startOfDay.plusDays(1);
+            List<BookedInterval> existingAppointments = appointmentRepository
+                .findBookedIntervalsByEmployeeIdsAndRange(List.of(employeeId), startOfDay, endOfDay);
+
+            for (BookedInterval existingAppointment : existingAppointments) {
+                // Check if there's an overlap
+                if (appointmentDateTime.isBefore(existingAppointment.to()) && requestedEndDateTime.isAfter(existingAppointment.from())) {
+                    return AppointmentReservationResponse.failure("Requested time slot conflicts with an existing appointment (including pending ones)");
+                }
+            }
 
-            // Check if there's an overlap
-            if (appointmentDateTime.isBefore(existingEnd) && requestedEndDateTime.isAfter(existingStart)) {
+            // Create and save the new appointment
+            Appointment appointment = new Appointment();
+            appointment.setCustomer(new UserModel());
+            appointment.getCustomer().setId(customerId);
+            appointment.setEmployee(new UserModel());
+            appointment.getEmployee().setId(employeeId);
+            appointment.setFrom(appointmentDateTime);
+            appointment.setTo(requestedEndDateTime);
+            appointment.setService(service);
+            appointment.setStatus(Appointment.AppointmentStatus.PENDING);
+
+            Appointment savedAppointment;
+            try {
+                savedAppointment = appointmentRepository.save(appointment);
+            } catch (DataIntegrityViolationException e) {
+                if (!isOverlapViolation(e)) {
+                    throw e;
+                }
+                // Another instance booked an overlapping slot, rejected by the exclusion constraint
+                intervalIndex.invalidate(employeeId, appointmentDate);
                 return AppointmentReservationResponse.failure("Requested time slot conflicts with an existing appointment (including pending ones)");
             }
-        }
-
-        // Create and save the new appointment
-        Appointment appointment = new Appointment();
-        appointment.setCustomer(new UserModel());
-        appointment.getCustomer().setId(customerId);
-        appointment.setEmployee(new UserModel());
-        appointment.getEmployee().setId(employeeId);
-        appointment.setFrom(appointmentDateTime);
-        appointment.setTo(requestedEndDateTime);
-        appointment.setService(service);
-        appointment.setStatus(Appointment.AppointmentStatus.PENDING);
+            intervalIndex.onSaved(savedAppointment);
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+            return AppointmentReservationResponse.success(savedAppointment.getId(), employeeId);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        return AppointmentReservationResponse.success(savedAppointment.getId(), employeeId);
+    // Only the exclusion constraint from V12 means the slot was taken; any other violation
+    // (e.g. a customer or service deleted meanwhile) is a real error and is rethrown
+    private static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return NO_OVERLAP_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+            // The driver's message names the constraint when Hibernate could not extract it
+            if (cause instanceof SQLException sql && sql.getMessage() != null && sql.getMessage().contains(NO_OVERLAP_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    // Helper method to check for appointment conflicts
-    private boolean hasAppointmentConflict(Long employeeId, LocalDateTime requestedStart, LocalDateTime requestedEnd) {
-        // Find all appointments for this employee on the same date
-        LocalDate appointmentDate = requestedStart.toLocalDate();
-        LocalDateTime startOfDay = appointmentDate.atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
+    /**
+     * Reserve several occurrences of a service for one customer.
+     * Holidays, schedules and existing appointments of all occurrences are checked with
+     * set-based queries and the accepted occurrences are inserted together.
+     * @param serviceId The ID of the service
+     * @param customerId The ID of the customer
+     * @param appointmentDateTimes Requested start times
+     * @return One result per requested start time, in the given order
+     */
+    public BulkReservationResponse reserveAppointments(Long serviceId, Long customerId, List<LocalDateTime> appointmentDateTimes) {
+        List<BulkReservationResponse.Occurrence> results = new ArrayList<>();
+        com.example.appointment.Services.Service service = serviceRepository.findById(serviceId).orElse(null);
+        if (service == null || appointmentDateTimes.isEmpty()) {
+            for (LocalDateTime dateTime : appointmentDateTimes) {
+                results.add(BulkReservationResponse.Occurrence.failure(dateTime, "Service not found"));
+            }
+            return BulkReservationResponse.of(results);
+        }
 
-        List<Appointment> existingAppointments = appointmentRepository
-            .findByEmployeeIdAndDate(employeeId, startOfDay, endOfDay);
+        LocalDate from = appointmentDateTimes.stream().map(LocalDateTime::toLocalDate).min(LocalDate::compareTo).get();
+        LocalDate to = appointmentDateTimes.stream().map(LocalDateTime::toLocalDate).max(LocalDate::compareTo).get();
+        Set<LocalDate> holidays = holidayRepository.findByHolidayDateBetween(from, to).stream()
+            .map(com.example.appointment.Holiday.Holiday::getHolidayDate)
+            .collect(Collectors.toSet());
+        Map<DayOfWeek, List<SlotEngine.Window>> windowsByDay = loadWindowsByDay(serviceId);
+
+        // Free slots of every requested day, from the interval index with one query for all misses
+        Map<LocalDate, Set<Long>> employeesByDate = new LinkedHashMap<>();
+        for (LocalDateTime dateTime : appointmentDateTimes) {
+            LocalDate date = dateTime.toLocalDate();
+            List<SlotEngine.Window> windows = windowsByDay.get(date.getDayOfWeek());
+            if (!holidays.contains(date) && windows != null && !windows.isEmpty()) {
+                employeesByDate.computeIfAbsent(date, d -> employeeIdsOf(windows));
+            }
+        }
+        Map<LocalDate, Map<Long, EmployeeDayIntervalIndex.DayIntervals>> booked = employeesByDate.isEmpty()
+            ? Map.of()
+            : intervalIndex.lookupRange(employeesByDate,
+                employeeIds -> appointmentRepository.findBookedIntervalsByEmployeeIdsAndRange(
+                    employeeIds, from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        Map<LocalDate, SlotEngine.DaySlots> slotsByDate = new HashMap<>();
+        for (LocalDate date : employeesByDate.keySet()) {
+            slotsByDate.put(date, computeSlotsForDay(date, windowsByDay.get(date.getDayOfWeek()), service.getDuration(), booked.get(date)));
+        }
 
-        // Check for any overlapping appointments
-        for (Appointment existingAppointment : existingAppointments) {
-            LocalDateTime existingStart = existingAppointment.getFrom();
-            LocalDateTime existingEnd = existingAppointment.getTo();
+        // Assign an employee to every occurrence, never giving one employee overlapping occurrences of this batch
+        Map<EmployeeDayIntervalIndex.EmployeeDay, List<Appointment>> candidates = new LinkedHashMap<>();
+        Map<Integer, Appointment> candidateByIndex = new LinkedHashMap<>();
+        Set<LocalDateTime> seen = new HashSet<>();
+        for (int i = 0; i < appointmentDateTimes.size(); i++) {
+            LocalDateTime dateTime = appointmentDateTimes.get(i);
+            LocalDate date = dateTime.toLocalDate();
+            results.add(null);
+
+            if (!seen.add(dateTime)) {
+                results.set(i, BulkReservationResponse.Occurrence.failure(dateTime, "Duplicate occurrence in request"));
+                continue;
+            }
+            if (holidays.contains(date)) {
+                results.set(i, BulkReservationResponse.Occurrence.failure(dateTime, "Cannot book appointment on a holiday"));
+                continue;
+            }
 
-            // Check if there's an overlap
-            if (requestedStart.isBefore(existingEnd) && requestedEnd.isAfter(existingStart)) {
-                return true; // Conflict found
+            LocalTime time = dateTime.toLocalTime();
+            SlotEngine.DaySlots slots = slotsByDate.get(date);
+            LocalDateTime end = dateTime.plusMinutes(service.getDuration());
+            Long employeeId = null;
+            if (slots != null && time.getSecond() == 0 && time.getNano() == 0) {
+                for (Long candidateEmployee : slots.employeesAt(time.toSecondOfDay() / 60)) {
+                    List<Appointment> claimed = candidates.getOrDefault(new EmployeeDayIntervalIndex.EmployeeDay(candidateEmployee, date), List.of());
+                    if (claimed.stream().noneMatch(a -> dateTime.isBefore(a.getTo()) && end.isAfter(a.getFrom()))) {
+                        employeeId = candidateEmployee;
+                        break;
+                    }
+                }
+            }
+            if (employeeId == null) {
+                results.set(i, BulkReservationResponse.Occurrence.failure(dateTime,
+                    "Requested time slot is not available or does not match an exact available slot"));
+                continue;
             }
+
+            Appointment appointment = new Appointment();
+            appointment.setCustomer(new UserModel());
+            appointment.getCustomer().setId(customerId);
+            appointment.setEmployee(new UserModel());
+            appointment.getEmployee().setId(employeeId);
+            appointment.setFrom(dateTime);
+            appointment.setTo(end);
+            appointment.setService(service);
+            appointment.setStatus(Appointment.AppointmentStatus.PENDING);
+            candidates.computeIfAbsent(new EmployeeDayIntervalIndex.EmployeeDay(employeeId, date), k -> new ArrayList<>()).add(appointment);
+            candidateByIndex.put(i, appointment);
         }
 
-        return false; // No conflict
+        if (!candidateByIndex.isEmpty()) {
+            insertCandidates(candidates, candidateByIndex, results, from, to);
+        }
+        return BulkReservationResponse.of(results);
+    }
+
+    // Re-check the candidates against the database under the striped locks of all their employee-days,
+    // then insert the ones without conflicts in one batch
+    private void insertCandidates(Map<EmployeeDayIntervalIndex.EmployeeDay, List<Appointment>> candidates,
+                                  Map<Integer, Appointment> candidateByIndex,
+                                  List<BulkReservationResponse.Occurrence> results,
+                                  LocalDate from, LocalDate to) {
+        List<ReentrantLock> locks = reservationLocks.locksFor(candidates.keySet());
+        locks.forEach(ReentrantLock::lock);
+        try {
+            Set<Long> employeeIds = candidates.keySet().stream()
+                .map(EmployeeDayIntervalIndex.EmployeeDay::employeeId)
+                .collect(Collectors.toSet());
+            Map<EmployeeDayIntervalIndex.EmployeeDay, List<BookedInterval>> existing = appointmentRepository
+                .findBookedIntervalsByEmployeeIdsAndRange(employeeIds, from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.groupingBy(b -> new EmployeeDayIntervalIndex.EmployeeDay(b.employeeId(), b.from().toLocalDate())));
+
+            Map<Integer, Appointment> accepted = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Appointment> candidate : candidateByIndex.entrySet()) {
+                Appointment appointment = candidate.getValue();
+                EmployeeDayIntervalIndex.EmployeeDay key = new EmployeeDayIntervalIndex.EmployeeDay(
+                    appointment.getEmployee().getId(), appointment.getFrom().toLocalDate());
+                boolean conflict = existing.getOrDefault(key, List.of()).stream()
+                    .anyMatch(b -> appointment.getFrom().isBefore(b.to()) && appointment.getTo().isAfter(b.from()));
+                if (conflict) {
+                    results.set(candidate.getKey(), BulkReservationResponse.Occurrence.failure(appointment.getFrom(),
+                        "Requested time slot conflicts with an existing appointment (including pending ones)"));
+                } else {
+                    accepted.put(candidate.getKey(), appointment);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            try {
+                appointmentRepository.saveAll(accepted.values());
+            } catch (DataIntegrityViolationException e) {
+                if (!isOverlapViolation(e)) {
+                    throw e;
+                }
+                // Another instance booked an overlapping slot; the whole batch was rolled back
+                candidates.keySet().forEach(key -> intervalIndex.invalidate(key.employeeId(), key.date()));
+                accepted.forEach((index, appointment) -> results.set(index, BulkReservationResponse.Occurrence.failure(
+                    appointment.getFrom(), "Requested time slot conflicts with an existing appointment (including pending ones)")));
+                return;
+            }
+
+            accepted.forEach((index, appointment) -> {
+                intervalIndex.onSaved(appointment);
+                results.set(index, BulkReservationResponse.Occurrence.success(
+                    appointment.getFrom(), appointment.getId(), appointment.getEmployee().getId()));
+            });
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
     }
 
     /**
@@ -361,6 +576,7 @@ public class AppointmentService {
         appointment.setStatus(status);
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        intervalIndex.onSaved(savedAppointment);
 
         // If the appointment is created with SCHEDULED status, schedule the completion job
         if (status == Appointment.AppointmentStatus.SCHEDULED) {
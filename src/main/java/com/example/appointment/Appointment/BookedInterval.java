@@ -0,0 +1,14 @@
+package com.example.appointment.Appointment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of a booked appointment used by slot computation.
+ * Avoids fetch-joining customers and employees when only the time range matters.
+ */
+public record BookedInterval(
+        Long appointmentId,
+        Long employeeId,
+        LocalDateTime from,
+        LocalDateTime to
+) {}
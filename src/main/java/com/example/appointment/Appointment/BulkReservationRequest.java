@@ -0,0 +1,61 @@
+package com.example.appointment.Appointment;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reserve several occurrences of one service at once, given either explicit
+ * date-times or a recurrence rule.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkReservationRequest {
+    private Long serviceId;
+    private Long customerId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private List<LocalDateTime> appointmentDateTimes;
+
+    private Recurrence recurrence;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Recurrence {
+        public enum Frequency { DAILY, WEEKLY }
+
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+        private LocalDateTime start;
+        private Frequency frequency;
+        private int interval = 1;
+        // Either count or until bounds the series
+        private Integer count;
+        private LocalDate until;
+
+        /**
+         * Expand the rule into date-times, stopping after max occurrences.
+         */
+        public List<LocalDateTime> occurrences(int max) {
+            List<LocalDateTime> occurrences = new ArrayList<>();
+            if (start == null || frequency == null || (count == null && until == null)) {
+                return occurrences;
+            }
+            int limit = count != null ? Math.min(count, max) : max;
+            long step = Math.max(1, interval);
+            LocalDateTime current = start;
+            while (occurrences.size() < limit && (until == null || !current.toLocalDate().isAfter(until))) {
+                occurrences.add(current);
+                current = frequency == Frequency.WEEKLY ? current.plusWeeks(step) : current.plusDays(step);
+            }
+            return occurrences;
+        }
+    }
+}
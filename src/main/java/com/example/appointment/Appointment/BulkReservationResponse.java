@@ -0,0 +1,41 @@
+package com.example.appointment.Appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkReservationResponse {
+    private int requested;
+    private int reserved;
+    private List<Occurrence> occurrences;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Occurrence {
+        private LocalDateTime appointmentDateTime;
+        private boolean success;
+        private String message;
+        private Long appointmentId;
+        private Long employeeId;
+
+        public static Occurrence success(LocalDateTime dateTime, Long appointmentId, Long employeeId) {
+            return new Occurrence(dateTime, true, "Appointment reserved successfully", appointmentId, employeeId);
+        }
+
+        public static Occurrence failure(LocalDateTime dateTime, String message) {
+            return new Occurrence(dateTime, false, message, null, null);
+        }
+    }
+
+    public static BulkReservationResponse of(List<Occurrence> occurrences) {
+        int reserved = (int) occurrences.stream().filter(Occurrence::isSuccess).count();
+        return new BulkReservationResponse(occurrences.size(), reserved, occurrences);
+    }
+}
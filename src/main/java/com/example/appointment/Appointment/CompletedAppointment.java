@@ -0,0 +1,14 @@
+package com.example.appointment.Appointment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row returned by the set-based completion update.
+ */
+public interface CompletedAppointment {
+    Long getId();
+
+    Long getCustomerId();
+
+    LocalDateTime getStartTime();
+}
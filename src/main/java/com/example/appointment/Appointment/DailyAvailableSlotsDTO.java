@@ -0,0 +1,16 @@
+package com.example.appointment.Appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyAvailableSlotsDTO {
+    private LocalDate date;
+    private List<AvailableSlotDTO> slots;
+}
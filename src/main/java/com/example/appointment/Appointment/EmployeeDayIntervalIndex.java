@@ -0,0 +1,322 @@
+package com.example.appointment.Appointment;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * In-memory index of booked intervals per employee and day.
+ *
+ * Each entry holds the non-cancelled appointments of one employee on one date as
+ * sorted minute-of-day arrays. Entries are loaded from the database on a miss and
+ * kept up to date by {@link AppointmentService} whenever an appointment is saved,
+ * so slot computation usually runs without touching the appointments table.
+ * Entries expire after a TTL to pick up writes made by other instances.
+ */
+@Component
+@Slf4j
+public class EmployeeDayIntervalIndex {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final ConcurrentHashMap<EmployeeDay, DayIntervals> entries = new ConcurrentHashMap<>();
+
+    // Versions of the keys hashing to each stripe, bumped before every write to one of them, so
+    // a load racing with a write to its key is not cached. Striped to keep memory fixed; a write
+    // only holds back loads of the few keys sharing its stripe.
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Value("${appointments.slot-index.ttl-ms:300000}")
+    private long ttlMillis = 300000;
+
+    @Value("${appointments.slot-index.max-entries:50000}")
+    private int maxEntries = 50000;
+
+    /**
+     * Get the booked intervals of the given employees on a date, loading every miss
+     * with a single call to the loader.
+     * @param employeeIds Employees to look up
+     * @param date The day to look up
+     * @param loader Loads the booked intervals of the missing employee IDs on that day
+     * @return Booked intervals keyed by employee ID, never containing nulls
+     */
+    public Map<Long, DayIntervals> lookup(Collection<Long> employeeIds, LocalDate date,
+                                          Function<List<Long>, List<BookedInterval>> loader) {
+        return lookupRange(Map.of(date, employeeIds), loader).get(date);
+    }
+
+    /**
+     * Get the booked intervals of several employees over several days, loading every
+     * miss with a single call to the loader.
+     * @param employeesByDate Employees to look up for each day
+     * @param loader Loads the booked intervals of the missing employee IDs over the
+     *               whole span of the requested days
+     * @return Booked intervals keyed by day, then by employee ID, never containing nulls
+     */
+    public Map<LocalDate, Map<Long, DayIntervals>> lookupRange(Map<LocalDate, ? extends Collection<Long>> employeesByDate,
+                                                                Function<List<Long>, List<BookedInterval>> loader) {
+        Map<LocalDate, Map<Long, DayIntervals>> result = new HashMap<>();
+        Map<LocalDate, List<Long>> misses = new HashMap<>();
+        Set<Long> missingEmployees = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        int lookups = 0;
+
+        for (Map.Entry<LocalDate, ? extends Collection<Long>> day : employeesByDate.entrySet()) {
+            LocalDate date = day.getKey();
+            Map<Long, DayIntervals> dayResult = result.computeIfAbsent(date, d -> new HashMap<>());
+            for (Long employeeId : day.getValue()) {
+                lookups++;
+                DayIntervals cached = entries.get(new EmployeeDay(employeeId, date));
+                if (cached != null && !cached.isExpired(now, ttlMillis)) {
+                    dayResult.put(employeeId, cached);
+                } else {
+                    misses.computeIfAbsent(date, d -> new ArrayList<>()).add(employeeId);
+                    missingEmployees.add(employeeId);
+                }
+            }
+        }
+
+        if (missingEmployees.isEmpty()) {
+            return result;
+        }
+
+        Map<EmployeeDay, Long> snapshots = new HashMap<>();
+        for (Map.Entry<LocalDate, List<Long>> day : misses.entrySet()) {
+            for (Long employeeId : day.getValue()) {
+                EmployeeDay key = new EmployeeDay(employeeId, day.getKey());
+                snapshots.put(key, version(key));
+            }
+        }
+        Map<EmployeeDay, List<BookedInterval>> loaded = new HashMap<>();
+        for (BookedInterval interval : loader.apply(new ArrayList<>(missingEmployees))) {
+            EmployeeDay key = new EmployeeDay(interval.employeeId(), interval.from().toLocalDate());
+            loaded.computeIfAbsent(key, k -> new ArrayList<>()).add(interval);
+        }
+
+        int missCount = 0;
+        for (Map.Entry<LocalDate, List<Long>> day : misses.entrySet()) {
+            LocalDate date = day.getKey();
+            for (Long employeeId : day.getValue()) {
+                EmployeeDay key = new EmployeeDay(employeeId, date);
+                DayIntervals intervals = DayIntervals.of(date, loaded.getOrDefault(key, List.of()), now);
+                result.get(date).put(employeeId, intervals);
+                store(key, intervals, snapshots.get(key));
+                missCount++;
+            }
+        }
+
+        log.debug("Interval index lookup over {} days: {} hits, {} misses",
+                employeesByDate.size(), lookups - missCount, missCount);
+        return result;
+    }
+
+    /**
+     * Reflect a saved appointment in the index. Cancelled appointments are removed,
+     * every other status occupies its time range.
+     * @param appointment The appointment as persisted
+     */
+    public void onSaved(Appointment appointment) {
+        if (appointment.getId() == null || appointment.getEmployee() == null
+                || appointment.getEmployee().getId() == null || appointment.getFrom() == null) {
+            return;
+        }
+
+        LocalDate date = appointment.getFrom().toLocalDate();
+        EmployeeDay key = new EmployeeDay(appointment.getEmployee().getId(), date);
+        bump(key);
+        long appointmentId = appointment.getId();
+
+        if (appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            entries.computeIfPresent(key, (k, current) -> current.without(appointmentId));
+        } else {
+            int start = startMinute(date, appointment.getFrom());
+            int end = endMinute(date, appointment.getTo());
+            entries.computeIfPresent(key, (k, current) -> current.without(appointmentId).with(appointmentId, start, end));
+        }
+    }
+
+    /**
+     * Drop the cached intervals of one employee on one day.
+     */
+    public void invalidate(Long employeeId, LocalDate date) {
+        EmployeeDay key = new EmployeeDay(employeeId, date);
+        bump(key);
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every cached entry.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Periodically drop entries for past days and expired entries.
+     */
+    @Scheduled(fixedRate = 600000) // Run every 10 minutes
+    public void evictStaleEntries() {
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.entrySet().removeIf(entry ->
+                entry.getKey().date().isBefore(today) || entry.getValue().isExpired(now, ttlMillis));
+        log.debug("Interval index eviction removed {} entries, {} remaining", before - entries.size(), entries.size());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void store(EmployeeDay key, DayIntervals intervals, long snapshot) {
+        if (entries.size() >= maxEntries) {
+            evictStaleEntries();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        // Checked under the entry's lock, which the writers' remove and computeIfPresent take
+        // too: a write that bumped the version first wins, a later one sees the stored entry
+        entries.compute(key, (k, current) -> version(k) == snapshot ? intervals : current);
+    }
+
+    private long version(EmployeeDay key) {
+        return versions.get(stripe(key));
+    }
+
+    private void bump(EmployeeDay key) {
+        versions.incrementAndGet(stripe(key));
+    }
+
+    private static int stripe(EmployeeDay key) {
+        return Math.floorMod(key.hashCode(), VERSION_STRIPES);
+    }
+
+    static int startMinute(LocalDate date, LocalDateTime from) {
+        if (from.toLocalDate().isBefore(date)) {
+            return 0;
+        }
+        return from.getHour() * 60 + from.getMinute();
+    }
+
+    static int endMinute(LocalDate date, LocalDateTime to) {
+        if (to == null || to.toLocalDate().isAfter(date)) {
+            return MINUTES_PER_DAY;
+        }
+        int minute = to.getHour() * 60 + to.getMinute();
+        // Round partial minutes up so the interval never under-reports the booking
+        return (to.getSecond() > 0 || to.getNano() > 0) ? minute + 1 : minute;
+    }
+
+    record EmployeeDay(Long employeeId, LocalDate date) {}
+
+    /**
+     * Immutable, start-sorted booked intervals of one employee on one day.
+     * Times are minutes since midnight; an end of {@link #MINUTES_PER_DAY} means midnight.
+     */
+    public static final class DayIntervals {
+        private final long[] appointmentIds;
+        private final int[] starts;
+        private final int[] ends;
+        private final long loadedAt;
+
+        private DayIntervals(long[] appointmentIds, int[] starts, int[] ends, long loadedAt) {
+            this.appointmentIds = appointmentIds;
+            this.starts = starts;
+            this.ends = ends;
+            this.loadedAt = loadedAt;
+        }
+
+        static DayIntervals of(LocalDate date, List<BookedInterval> booked, long loadedAt) {
+            DayIntervals intervals = new DayIntervals(new long[0], new int[0], new int[0], loadedAt);
+            for (BookedInterval interval : booked) {
+                intervals = intervals.with(interval.appointmentId(),
+                        startMinute(date, interval.from()), endMinute(date, interval.to()));
+            }
+            return intervals;
+        }
+
+        public int size() {
+            return starts.length;
+        }
+
+        public int startAt(int i) {
+            return starts[i];
+        }
+
+        public int endAt(int i) {
+            return ends[i];
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - loadedAt > ttlMillis;
+        }
+
+        DayIntervals with(long appointmentId, int start, int end) {
+            int n = starts.length;
+            int pos = Arrays.binarySearch(starts, start);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+
+            long[] newIds = new long[n + 1];
+            int[] newStarts = new int[n + 1];
+            int[] newEnds = new int[n + 1];
+            System.arraycopy(appointmentIds, 0, newIds, 0, pos);
+            System.arraycopy(starts, 0, newStarts, 0, pos);
+            System.arraycopy(ends, 0, newEnds, 0, pos);
+            newIds[pos] = appointmentId;
+            newStarts[pos] = start;
+            newEnds[pos] = end;
+            System.arraycopy(appointmentIds, pos, newIds, pos + 1, n - pos);
+            System.arraycopy(starts, pos, newStarts, pos + 1, n - pos);
+            System.arraycopy(ends, pos, newEnds, pos + 1, n - pos);
+            return new DayIntervals(newIds, newStarts, newEnds, loadedAt);
+        }
+
+        DayIntervals without(long appointmentId) {
+            int pos = -1;
+            for (int i = 0; i < appointmentIds.length; i++) {
+                if (appointmentIds[i] == appointmentId) {
+                    pos = i;
+                    break;
+                }
+            }
+            if (pos < 0) {
+                return this;
+            }
+
+            int n = starts.length;
+            long[] newIds = new long[n - 1];
+            int[] newStarts = new int[n - 1];
+            int[] newEnds = new int[n - 1];
+            System.arraycopy(appointmentIds, 0, newIds, 0, pos);
+            System.arraycopy(starts, 0, newStarts, 0, pos);
+            System.arraycopy(ends, 0, newEnds, 0, pos);
+            System.arraycopy(appointmentIds, pos + 1, newIds, pos, n - pos - 1);
+            System.arraycopy(starts, pos + 1, newStarts, pos, n - pos - 1);
+            System.arraycopy(ends, pos + 1, newEnds, pos, n - pos - 1);
+            return new DayIntervals(newIds, newStarts, newEnds, loadedAt);
+        }
+    }
+}
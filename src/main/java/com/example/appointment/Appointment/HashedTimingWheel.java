@@ -0,0 +1,143 @@
+package com.example.appointment.Appointment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of deadlines keyed by a long ID.
+ *
+ * Schedule and cancel are O(1): each entry sits in the bucket of its deadline tick and is
+ * also indexed by key. Time only moves when {@link #advanceTo(long)} is called, which
+ * returns the keys whose deadline has been reached. Entries never expire early.
+ */
+public class HashedTimingWheel {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Node[] buckets;
+    private final int mask;
+    private final Map<Long, Node> byKey = new HashMap<>();
+
+    // Next tick to expire; every tick before it has been processed
+    private long currentTick;
+
+    /**
+     * @param tickMillis Resolution of the wheel
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     * @param startMillis Epoch millis of tick zero
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new Node[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Schedule a key, replacing its previous deadline if it was already scheduled.
+     * Deadlines in the past expire on the next advance.
+     */
+    public synchronized void schedule(long key, long deadlineMillis) {
+        Node existing = byKey.remove(key);
+        if (existing != null) {
+            unlink(existing);
+        }
+
+        long elapsed = deadlineMillis - startMillis;
+        long tick = Math.max(currentTick, elapsed <= 0 ? 0 : (elapsed + tickMillis - 1) / tickMillis);
+        Node node = new Node(key, tick);
+        link(node);
+        byKey.put(key, node);
+    }
+
+    /**
+     * @return true if the key was scheduled
+     */
+    public synchronized boolean cancel(long key) {
+        Node node = byKey.remove(key);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public synchronized boolean contains(long key) {
+        return byKey.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return byKey.size();
+    }
+
+    /**
+     * Move the wheel forward and remove every entry whose deadline is at or before nowMillis.
+     * @return Keys of the expired entries
+     */
+    public synchronized List<Long> advanceTo(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        if (targetTick < currentTick) {
+            return expired;
+        }
+
+        // After a long pause one pass over every bucket is enough
+        long lastTick = Math.min(targetTick, currentTick + buckets.length - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            int index = (int) (tick & mask);
+            Node node = buckets[index];
+            while (node != null) {
+                Node next = node.next;
+                if (node.tick <= targetTick) {
+                    unlink(node);
+                    byKey.remove(node.key);
+                    expired.add(node.key);
+                }
+                node = next;
+            }
+        }
+        currentTick = targetTick + 1;
+        return expired;
+    }
+
+    private void link(Node node) {
+        int index = (int) (node.tick & mask);
+        Node head = buckets[index];
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        buckets[index] = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            buckets[(int) (node.tick & mask)] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+
+    private static final class Node {
+        private final long key;
+        private final long tick;
+        private Node prev;
+        private Node next;
+
+        private Node(long key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
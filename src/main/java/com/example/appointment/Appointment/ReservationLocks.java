@@ -0,0 +1,58 @@
+package com.example.appointment.Appointment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks serializing reservations of one employee on one day within this instance.
+ *
+ * Reservations for different employees or days usually map to different stripes and run in
+ * parallel. Across instances the exclusion constraint on the appointments table is the
+ * final guard against overlapping bookings.
+ */
+@Component
+public class ReservationLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public ReservationLocks(@Value("${appointments.reservation.lock-stripes:1024}") int stripeCount) {
+        this.stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Long employeeId, LocalDate date) {
+        return stripes[stripeIndex(employeeId, date)];
+    }
+
+    /**
+     * Distinct locks covering several employee-days, in stripe order. Acquiring them in
+     * the returned order cannot deadlock with another caller doing the same.
+     */
+    public List<ReentrantLock> locksFor(Collection<EmployeeDayIntervalIndex.EmployeeDay> employeeDays) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (EmployeeDayIntervalIndex.EmployeeDay employeeDay : employeeDays) {
+            indexes.add(stripeIndex(employeeDay.employeeId(), employeeDay.date()));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    private int stripeIndex(Long employeeId, LocalDate date) {
+        int hash = 31 * Long.hashCode(employeeId) + date.hashCode();
+        // Spread the bits so consecutive employee IDs and dates don't cluster on neighbouring stripes
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, stripes.length);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.appointment.Appointment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Slot generator working on minute-of-day integers.
+ *
+ * Free slot starts are computed as int arrays per employee window and merged into one
+ * packed long array per day. Nothing is allocated per slot until {@link DaySlots#toDTOs()}
+ * converts the result at the API boundary.
+ */
+final class SlotEngine {
+
+    private SlotEngine() {
+    }
+
+    /**
+     * Working hours of one employee on one day, in minutes since midnight.
+     */
+    record Window(long employeeId, int startMinute, int endMinute) {}
+
+    /**
+     * Free slot starts of one window, in ascending order.
+     * @param window The employee's working hours
+     * @param booked The employee's booked intervals on that day, sorted by start
+     * @param duration Service duration in minutes
+     * @return Start minutes of every slot that fits between the bookings
+     */
+    static int[] freeStarts(Window window, EmployeeDayIntervalIndex.DayIntervals booked, int duration) {
+        int windowStart = window.startMinute();
+        int windowEnd = window.endMinute();
+        if (duration <= 0 || windowEnd - windowStart < duration) {
+            return new int[0];
+        }
+
+        int[] starts = new int[(windowEnd - windowStart) / duration];
+        int count = 0;
+        int current = windowStart;
+
+        int bookings = booked == null ? 0 : booked.size();
+        for (int i = 0; i < bookings; i++) {
+            int bookedStart = booked.startAt(i);
+            int bookedEnd = booked.endAt(i);
+
+            // Skip bookings outside the remaining part of this window
+            if (bookedEnd <= current) {
+                continue;
+            }
+            if (bookedStart >= windowEnd) {
+                break;
+            }
+
+            while (current + duration <= bookedStart) {
+                starts[count++] = current;
+                current += duration;
+            }
+            current = Math.max(current, bookedEnd);
+        }
+
+        while (current + duration <= windowEnd) {
+            starts[count++] = current;
+            current += duration;
+        }
+
+        return count == starts.length ? starts : Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Merge the free starts of every window into one day ordered by start minute, then employee.
+     * @param date The day the windows belong to
+     * @param windows Windows sorted by employee ID
+     * @param startsPerWindow Result of {@link #freeStarts} for each window, in the same order
+     * @param duration Service duration in minutes
+     */
+    static DaySlots merge(LocalDate date, List<Window> windows, List<int[]> startsPerWindow, int duration) {
+        int total = 0;
+        for (int[] starts : startsPerWindow) {
+            total += starts.length;
+        }
+
+        // High bits hold the start minute, low bits the window index; windows are sorted by
+        // employee so natural long order is start time, then employee ID
+        long[] packed = new long[total];
+        int n = 0;
+        for (int w = 0; w < startsPerWindow.size(); w++) {
+            for (int start : startsPerWindow.get(w)) {
+                packed[n++] = ((long) start << 32) | w;
+            }
+        }
+        Arrays.sort(packed);
+
+        // Drop duplicates produced by overlapping windows of the same employee
+        int size = 0;
+        for (int i = 0; i < total; i++) {
+            if (size > 0 && startOf(packed[size - 1]) == startOf(packed[i])
+                    && windows.get(windowOf(packed[size - 1])).employeeId() == windows.get(windowOf(packed[i])).employeeId()) {
+                continue;
+            }
+            packed[size++] = packed[i];
+        }
+
+        return new DaySlots(date, duration, windows, packed, size);
+    }
+
+    private static int startOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int windowOf(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Free slots of one day, kept as packed primitives until converted to DTOs.
+     */
+    static final class DaySlots {
+        private final LocalDate date;
+        private final int duration;
+        private final List<Window> windows;
+        private final long[] packed;
+        private final int size;
+
+        private DaySlots(LocalDate date, int duration, List<Window> windows, long[] packed, int size) {
+            this.date = date;
+            this.duration = duration;
+            this.windows = windows;
+            this.packed = packed;
+            this.size = size;
+        }
+
+        static DaySlots empty(LocalDate date) {
+            return new DaySlots(date, 0, List.of(), new long[0], 0);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int startMinuteAt(int i) {
+            return startOf(packed[i]);
+        }
+
+        long employeeIdAt(int i) {
+            return windows.get(windowOf(packed[i])).employeeId();
+        }
+
+        /**
+         * First employee, by ID, with a free slot starting exactly at the given minute.
+         * @return The employee ID, or null if no slot starts there
+         */
+        Long employeeAt(int startMinute) {
+            int pos = Arrays.binarySearch(packed, 0, size, (long) startMinute << 32);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            if (pos < size && startOf(packed[pos]) == startMinute) {
+                return employeeIdAt(pos);
+            }
+            return null;
+        }
+
+        /**
+         * Every employee, by ID, with a free slot starting exactly at the given minute.
+         */
+        List<Long> employeesAt(int startMinute) {
+            List<Long> employees = new ArrayList<>();
+            int pos = Arrays.binarySearch(packed, 0, size, (long) startMinute << 32);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            for (int i = pos; i < size && startOf(packed[i]) == startMinute; i++) {
+                employees.add(employeeIdAt(i));
+            }
+            return employees;
+        }
+
+        List<AvailableSlotDTO> toDTOs() {
+            List<AvailableSlotDTO> slots = new ArrayList<>(size);
+            LocalDateTime startOfDay = date.atStartOfDay();
+            String[] names = new String[windows.size()];
+            for (int i = 0; i < size; i++) {
+                int w = windowOf(packed[i]);
+                if (names[w] == null) {
+                    names[w] = "Employee " + windows.get(w).employeeId(); // In a real implementation, you'd fetch the actual name
+                }
+                LocalDateTime slotStart = startOfDay.plusMinutes(startOf(packed[i]));
+                slots.add(new AvailableSlotDTO(slotStart, slotStart.plusMinutes(duration), windows.get(w).employeeId(), names[w]));
+            }
+            return slots;
+        }
+    }
+}
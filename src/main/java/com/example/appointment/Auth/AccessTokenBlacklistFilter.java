@@ -0,0 +1,241 @@
+package com.example.appointment.Auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local Bloom filter of blacklisted access token JTIs, consulted before Redis, plus a local
+ * copy of the per-user "revoked before" epochs.
+ *
+ * A JTI the filter has never seen cannot be blacklisted, so Redis is only asked on a filter
+ * hit. Every instance adds new JTIs and user revocations through Redis pub/sub channels and
+ * periodically rebuilds both from the bucket hashes live at that time, computed from the
+ * clock, which drops expired entries and repairs missed messages. Until the first rebuild
+ * finishes every lookup goes to Redis, and so does every lookup in the keys layout, whose
+ * entries cannot be listed without walking the keyspace.
+ */
+@Component
+@Slf4j
+public class AccessTokenBlacklistFilter implements MessageListener {
+
+    static final String CHANNEL = "blacklist:access:events";
+    static final String USER_CHANNEL = "blacklist:user:events";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter falsePositives;
+
+    @Value("${jwt.blacklist-filter.expected-insertions:100000}")
+    private long expectedInsertions = 100000;
+
+    @Value("${jwt.blacklist-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${jwt.access-token-expiration:1800000}")
+    private long accessTokenExpiration = 1800000;
+
+    @Value("${jwt.blacklist.layout:keys}")
+    private String layout = "keys";
+
+    @Value("${jwt.blacklist.bucket-ms:300000}")
+    private long bucketMillis = 300000;
+
+    // User id to epoch millis of the last revocation; access tokens of that user issued up to it are revoked
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+    // Filter being rebuilt; JTIs published meanwhile go into both
+    private volatile BloomFilter rebuilding;
+
+    public AccessTokenBlacklistFilter(RedisTemplate<String, Object> redisTemplate,
+                                      RedisMessageListenerContainer listenerContainer,
+                                      MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.hits = Counter.builder("auth.blacklist.filter.lookups").tag("result", "hit")
+                .description("Lookups the filter could not rule out, checked in Redis").register(meterRegistry);
+        this.misses = Counter.builder("auth.blacklist.filter.lookups").tag("result", "miss")
+                .description("Lookups answered by the filter without Redis").register(meterRegistry);
+        this.falsePositives = Counter.builder("auth.blacklist.filter.false.positives")
+                .description("Filter hits that Redis reported as not blacklisted").register(meterRegistry);
+        listenerContainer.addMessageListener(this, List.of(new ChannelTopic(CHANNEL), new ChannelTopic(USER_CHANNEL)));
+    }
+
+    /**
+     * @return false until the first rebuild has loaded the filter and the user revocations
+     */
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    /**
+     * @return Epoch millis the user's access tokens were revoked before, or null if they were not
+     */
+    public Long revokedBefore(long userId) {
+        return revokedBefore.get(userId);
+    }
+
+    /**
+     * @return false if the JTI is certainly not blacklisted, true if Redis must be asked
+     */
+    public boolean mightBeBlacklisted(String jti) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return true;
+        }
+        if (current.mightContain(jti)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Add a newly blacklisted JTI here and on every other instance.
+     */
+    public void publish(String jti) {
+        add(jti);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, jti);
+        } catch (Exception e) {
+            log.error("Failed to publish blacklisted JTI {}, other instances will pick it up on their next rebuild", jti, e);
+        }
+    }
+
+    /**
+     * Record that every access token the user was issued up to the given time is revoked,
+     * here and on every other instance.
+     */
+    public void publishUserRevocation(long userId, long revokedBeforeMillis) {
+        revokedBefore.merge(userId, revokedBeforeMillis, Math::max);
+        try {
+            redisTemplate.convertAndSend(USER_CHANNEL, userId + ":" + revokedBeforeMillis);
+        } catch (Exception e) {
+            log.error("Failed to publish revocation of user {}, other instances will pick it up on their next rebuild", userId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = valueSerializer().deserialize(message.getBody());
+        if (!(body instanceof String value)) {
+            return;
+        }
+
+        if (USER_CHANNEL.equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+            int separator = value.indexOf(':');
+            revokedBefore.merge(Long.parseLong(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)), Math::max);
+        } else {
+            add(value);
+        }
+    }
+
+    /**
+     * Rebuild the filter and the user revocations from the live bucket hashes in Redis.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.blacklist-filter.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!"buckets".equalsIgnoreCase(layout)) {
+            // Per-JTI keys cannot be listed without walking the keyspace; every lookup goes to Redis
+            return;
+        }
+
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuilding = next;
+        long count = 0;
+        Map<Long, Long> revocations = new HashMap<>();
+
+        try {
+            for (Object jtis : readLiveBuckets(TokenBlacklistService.ACCESS_BLACKLIST_PREFIX, true)) {
+                for (Object jti : (Collection<?>) jtis) {
+                    next.put((String) jti);
+                    count++;
+                }
+            }
+            for (Object bucket : readLiveBuckets(TokenBlacklistService.USER_REVOKED_PREFIX, false)) {
+                ((Map<?, ?>) bucket).forEach((userId, epoch) -> revocations.merge(
+                        Long.parseLong((String) userId), Long.parseLong((String) epoch), Math::max));
+            }
+        } catch (Exception e) {
+            rebuilding = null;
+            log.error("Failed to rebuild access token blacklist filter, keeping the previous one", e);
+            return;
+        }
+
+        revocations.forEach((userId, epoch) -> revokedBefore.merge(userId, epoch, Math::max));
+        // Every token issued before these epochs has expired by now
+        long oldest = System.currentTimeMillis() - accessTokenExpiration;
+        revokedBefore.values().removeIf(epoch -> epoch < oldest);
+
+        // In this order; add() relies on it
+        filter = next;
+        rebuilding = null;
+        if (count > expectedInsertions) {
+            log.warn("Access token blacklist holds {} entries, above the filter's expected {}; false positives will rise",
+                    count, expectedInsertions);
+        }
+        log.debug("Rebuilt access token blacklist filter with {} entries", count);
+    }
+
+    // Live buckets run from the current one to the one the longest-lived access token expires in;
+    // HKEYS or HGETALL of each in one pipeline, an empty result for buckets that do not exist
+    private List<Object> readLiveBuckets(String prefix, boolean keysOnly) {
+        long now = System.currentTimeMillis();
+        long first = now / bucketMillis;
+        long last = (now + accessTokenExpiration) / bucketMillis;
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long bucket = first; bucket <= last; bucket++) {
+                byte[] key = TokenBlacklistService.bucketKey(prefix, bucket).getBytes(StandardCharsets.UTF_8);
+                if (keysOnly) {
+                    connection.hashCommands().hKeys(key);
+                } else {
+                    connection.hashCommands().hGetAll(key);
+                }
+            }
+            return null;
+        }, RedisSerializer.string());
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+    }
+
+    // rebuild() publishes the new filter before clearing rebuilding, so reading them in the
+    // opposite order never misses both: a JTI added while the filters are swapped still lands
+    // in the new one
+    private void add(String jti) {
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(jti);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(jti);
+        }
+    }
+}
@@ -3,33 +3,38 @@ package com.example.appointment.Auth;
 import com.example.appointment.Auth.dto.*;
 import com.example.appointment.User.UserModel;
 import com.example.appointment.User.UserRepository;
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AuthService {
 
     private final UserRepository userRepository;
     private final UserSessionRepository userSessionRepository;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final TokenBlacklistService tokenBlacklistService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
 
-    @Value("${jwt.refresh-token-expiration}")
-    private Long refreshTokenExpiration;
-
-    @Transactional
     public TokenResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("Email already exists");
@@ -39,30 +44,55 @@ public class AuthService {
             throw new RuntimeException("Username already exists");
         }
 
-        UserModel user = new UserModel();
-        user.setUsername(request.getUsername());
-        user.setEmail(request.getEmail());
-        user.setPhoneNumber(request.getPhoneNumber());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole(request.getRole());
+        // Hash before opening the transaction so no connection is held during BCrypt
+        String passwordHash = passwordHashingService.encode(request.getPassword());
+
+        return transactionTemplate.execute(status -> {
+            UserModel user = new UserModel();
+            user.setUsername(request.getUsername());
+            user.setEmail(request.getEmail());
+            user.setPhoneNumber(request.getPhoneNumber());
+            user.setPassword(passwordHash);
+            user.setRole(request.getRole());
 
-        UserModel savedUser = userRepository.save(user);
+            UserModel savedUser = userRepository.save(user);
 
-        return generateTokens(savedUser);
+            return generateTokens(savedUser);
+        });
     }
 
-    @Transactional
+    // Not transactional: the password check runs on the hashing pool without holding a connection
     public TokenResponse login(LoginRequest request) {
         UserModel user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
 
+        upgradePasswordHashIfNeeded(user, request.getPassword());
+
         return generateTokens(user);
     }
 
+    // Rehash with the current algorithm and cost while the raw password is at hand
+    private void upgradePasswordHashIfNeeded(UserModel user, String rawPassword) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return;
+        }
+
+        try {
+            String upgraded = passwordHashingService.encode(rawPassword);
+            if (userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), upgraded) == 1) {
+                user.setPassword(upgraded);
+                log.info("Upgraded password hash for user {}", user.getId());
+            }
+        } catch (PasswordHashingBusyException e) {
+            // The login itself succeeded; try again on a later login
+            log.debug("Skipped password hash upgrade for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
     @Transactional
     public TokenResponse refreshAccessToken(RefreshTokenRequest request) {
         String refreshToken = request.getRefreshToken();
@@ -72,12 +102,13 @@ public class AuthService {
         }
 
         // Check if refresh token is blacklisted
-        String refreshJti = jwtUtil.extractJti(refreshToken);
-        if (refreshJti != null && tokenBlacklistService.isRefreshTokenBlacklisted(refreshJti)) {
+        ParsedToken parsedRefresh = jwtUtil.parseToken(refreshToken);
+        String refreshJti = parsedRefresh.jti();
+        if (refreshJti != null && tokenBlacklistService.isRefreshTokenBlacklisted(refreshJti, parsedRefresh.expiresAt())) {
             throw new RuntimeException("Refresh token has been revoked");
         }
 
-        UserSessionModel session = userSessionRepository.findByRefreshToken(refreshToken)
+        UserSessionModel session = userSessionRepository.findByTokenHash(jwtUtil.digest(refreshToken))
                 .orElseThrow(() -> new RuntimeException("Refresh token not found"));
 
         if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
@@ -102,22 +133,21 @@ public class AuthService {
 
     public TokenValidationResponse validateAccessToken(String token) {
         try {
-            if (jwtUtil.validateToken(token)) {
-                String email = jwtUtil.extractEmail(token);
-                Long userId = jwtUtil.extractUserId(token);
-                String role = jwtUtil.extractRole(token);
-
+            ParsedToken parsed = jwtUtil.parseToken(token);
+            if (jwtUtil.isValid(parsed)) {
                 TokenValidationResponse response = new TokenValidationResponse();
                 response.setValid(true);
                 response.setMessage("Token is valid");
-                response.setEmail(email);
-                response.setUserId(userId);
-                response.setRole(role);
+                response.setEmail(parsed.email());
+                response.setUserId(parsed.userId());
+                response.setRole(parsed.role());
 
                 return response;
             } else {
                 return new TokenValidationResponse(false, "Token is invalid or expired");
             }
+        } catch (JwtException | IllegalArgumentException e) {
+            return new TokenValidationResponse(false, "Token is invalid or expired");
         } catch (Exception e) {
             return new TokenValidationResponse(false, "Token validation failed: " + e.getMessage());
         }
@@ -128,13 +158,9 @@ public class AuthService {
         // Blacklist access token if provided
         if (accessToken != null && !accessToken.isEmpty()) {
             try {
-                String accessJti = jwtUtil.extractJti(accessToken);
-                Long userId = jwtUtil.extractUserId(accessToken);
-                long accessTtl = jwtUtil.getRemainingTtl(accessToken);
-
-                if (accessTtl > 0 && accessJti != null) {
-                    tokenBlacklistService.blacklistAccessToken(accessJti, accessTtl);
-                    tokenBlacklistService.removeUserAccessToken(userId, accessJti);
+                ParsedToken parsed = jwtUtil.parseToken(accessToken);
+                if (parsed.jti() != null) {
+                    tokenBlacklistService.blacklistAccessToken(parsed.jti(), parsed.expiresAt());
                 }
             } catch (Exception e) {
                 // Log but don't fail logout if access token processing fails
@@ -144,39 +170,36 @@ public class AuthService {
         // Blacklist refresh token and delete from database
         if (refreshToken != null && !refreshToken.isEmpty()) {
             try {
-                String refreshJti = jwtUtil.extractJti(refreshToken);
-                long refreshTtl = jwtUtil.getRemainingTtl(refreshToken);
-
-                if (refreshTtl > 0 && refreshJti != null) {
-                    tokenBlacklistService.blacklistRefreshToken(refreshJti, refreshTtl);
+                ParsedToken parsed = jwtUtil.parseToken(refreshToken);
+                if (parsed.jti() != null) {
+                    tokenBlacklistService.blacklistRefreshToken(parsed.jti(), parsed.expiresAt());
                 }
             } catch (Exception e) {
                 // Log but don't fail logout
             }
 
-            Optional<UserSessionModel> session = userSessionRepository.findByRefreshToken(refreshToken);
+            Optional<UserSessionModel> session = userSessionRepository.findByTokenHash(jwtUtil.digest(refreshToken));
             session.ifPresent(userSessionRepository::delete);
         }
     }
 
     @Transactional
     public void logoutAllSessions(Long userId) {
-        // Blacklist all active access tokens for this user
+        // Revoke all access tokens issued to this user so far
         tokenBlacklistService.blacklistAllUserAccessTokens(userId);
 
-        // Blacklist all refresh tokens and delete from database
+        // Blacklist all refresh tokens until they expire in one round trip
         List<UserSessionModel> sessions = userSessionRepository.findAllByUserId(userId);
+        Map<String, Instant> refreshExpiries = new HashMap<>();
         for (UserSessionModel session : sessions) {
-            try {
-                String refreshJti = jwtUtil.extractJti(session.getRefreshToken());
-                long refreshTtl = jwtUtil.getRemainingTtl(session.getRefreshToken());
-                if (refreshTtl > 0 && refreshJti != null) {
-                    tokenBlacklistService.blacklistRefreshToken(refreshJti, refreshTtl);
-                }
-            } catch (Exception e) {
-                // Log but continue - token might be malformed or expired
+            // The session expires with its refresh token, so no token needs to be parsed. JWT expiry
+            // is in whole seconds; sessions stored before they copied it exactly are a few ms later
+            if (session.getJti() != null) {
+                refreshExpiries.put(session.getJti(),
+                        session.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS));
             }
         }
+        tokenBlacklistService.blacklistRefreshTokens(refreshExpiries);
 
         userSessionRepository.deleteByUserId(userId);
     }
@@ -189,11 +212,14 @@ public class AuthService {
         );
 
         String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
+        ParsedToken parsedRefreshToken = jwtUtil.parseToken(refreshToken);
 
         UserSessionModel session = new UserSessionModel();
-        session.setRefreshToken(refreshToken);
+        session.setTokenHash(jwtUtil.digest(refreshToken));
+        session.setJti(parsedRefreshToken.jti());
         session.setUser(user);
-        session.setExpiresAt(LocalDateTime.now().plusNanos(refreshTokenExpiration * 1_000_000));
+        // Exactly the token's expiry, so blacklisting the session finds the token's bucket
+        session.setExpiresAt(LocalDateTime.ofInstant(parsedRefreshToken.expiresAt(), ZoneId.systemDefault()));
 
         userSessionRepository.save(session);
 
@@ -0,0 +1,29 @@
+package com.example.appointment.Auth;
+
+import com.example.appointment.Common.enums.UserRole;
+
+import java.security.Principal;
+
+/**
+ * Principal of an authenticated request, built from the access token claims alone so the
+ * users table is not queried per request. Use UserService.getCurrentUser() when the full
+ * UserModel is really needed.
+ *
+ * Since the role comes from the token, role changes and deleted users are enforced by the
+ * per-user revocation UserService records on every update and delete: tokens issued up to that
+ * millisecond are rejected, and the user has to log in again to get the new role.
+ */
+public record AuthenticatedUser(Long id, String email, UserRole role) implements Principal {
+
+    static AuthenticatedUser of(ParsedToken token) {
+        if (token.userId() == null || token.role() == null) {
+            return null;
+        }
+        return new AuthenticatedUser(token.userId(), token.email(), UserRole.valueOf(token.role()));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.appointment.Auth;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes blacklist size and memory as metrics without walking the keyspace.
+ *
+ * Blacklist keys expire natively, so there is nothing to clean up. Key counts are estimated
+ * by sampling RANDOMKEY and scaling by DBSIZE, memory by MEMORY USAGE of the sampled keys. In
+ * the bucket layout the live bucket hashes are computed from the clock and counted exactly
+ * with HLEN. Redis-wide memory and expirations come from INFO.
+ */
+@Component
+@Slf4j
+public class BlacklistStatsCollector {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final TokenBlacklistService tokenBlacklistService;
+
+    private final AtomicLong accessKeys = new AtomicLong();
+    private final AtomicLong refreshKeys = new AtomicLong();
+    private final AtomicLong accessBytes = new AtomicLong();
+    private final AtomicLong refreshBytes = new AtomicLong();
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final AtomicLong expiredKeys = new AtomicLong();
+
+    @Value("${jwt.blacklist-stats.sample-size:50}")
+    private int sampleSize = 50;
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+
+    @Value("${jwt.refresh-token-expiration}")
+    private long refreshTokenExpiration;
+
+    public BlacklistStatsCollector(RedisTemplate<String, Object> redisTemplate,
+                                   TokenBlacklistService tokenBlacklistService,
+                                   MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.tokenBlacklistService = tokenBlacklistService;
+        meterRegistry.gauge("auth.blacklist.entries", Tags.of("type", "access"), accessKeys);
+        meterRegistry.gauge("auth.blacklist.entries", Tags.of("type", "refresh"), refreshKeys);
+        meterRegistry.gauge("auth.blacklist.memory.bytes", Tags.of("type", "access"), accessBytes);
+        meterRegistry.gauge("auth.blacklist.memory.bytes", Tags.of("type", "refresh"), refreshBytes);
+        meterRegistry.gauge("auth.redis.memory.used.bytes", usedMemory);
+        meterRegistry.gauge("auth.redis.keys.expired", expiredKeys);
+    }
+
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${jwt.blacklist-stats.interval-ms:300000}")
+    public void collect() {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                collectServerInfo(connection);
+                if (tokenBlacklistService.isBucketLayout()) {
+                    countBuckets(connection, TokenBlacklistService.ACCESS_BLACKLIST_PREFIX, accessTokenExpiration, accessKeys, accessBytes);
+                    countBuckets(connection, TokenBlacklistService.REFRESH_BLACKLIST_PREFIX, refreshTokenExpiration, refreshKeys, refreshBytes);
+                } else {
+                    sampleKeys(connection);
+                }
+                return null;
+            });
+            log.debug("Blacklist stats: access={} ({} bytes), refresh={} ({} bytes)",
+                    accessKeys.get(), accessBytes.get(), refreshKeys.get(), refreshBytes.get());
+        } catch (Exception e) {
+            log.error("Failed to collect blacklist stats", e);
+        }
+    }
+
+    private void collectServerInfo(RedisConnection connection) {
+        Properties memory = connection.serverCommands().info("memory");
+        if (memory != null && memory.getProperty("used_memory") != null) {
+            usedMemory.set(Long.parseLong(memory.getProperty("used_memory").trim()));
+        }
+        Properties stats = connection.serverCommands().info("stats");
+        if (stats != null && stats.getProperty("expired_keys") != null) {
+            expiredKeys.set(Long.parseLong(stats.getProperty("expired_keys").trim()));
+        }
+    }
+
+    private void sampleKeys(RedisConnection connection) {
+        Long dbSize = connection.serverCommands().dbSize();
+        if (dbSize == null || dbSize == 0) {
+            accessKeys.set(0);
+            refreshKeys.set(0);
+            accessBytes.set(0);
+            refreshBytes.set(0);
+            return;
+        }
+
+        int samples = (int) Math.min(sampleSize, dbSize);
+        int accessHits = 0;
+        int refreshHits = 0;
+        long accessSampleBytes = 0;
+        long refreshSampleBytes = 0;
+        for (int i = 0; i < samples; i++) {
+            byte[] key = connection.keyCommands().randomKey();
+            if (key == null) {
+                continue;
+            }
+            String name = new String(key, StandardCharsets.UTF_8);
+            if (name.startsWith(TokenBlacklistService.ACCESS_BLACKLIST_PREFIX)) {
+                accessHits++;
+                accessSampleBytes += memoryUsage(connection, key);
+            } else if (name.startsWith(TokenBlacklistService.REFRESH_BLACKLIST_PREFIX)) {
+                refreshHits++;
+                refreshSampleBytes += memoryUsage(connection, key);
+            }
+        }
+
+        accessKeys.set(accessHits * dbSize / samples);
+        refreshKeys.set(refreshHits * dbSize / samples);
+        accessBytes.set(accessHits == 0 ? 0 : accessSampleBytes / accessHits * accessKeys.get());
+        refreshBytes.set(refreshHits == 0 ? 0 : refreshSampleBytes / refreshHits * refreshKeys.get());
+    }
+
+    // Live buckets run from the current one to the one the longest-lived token expires in
+    private void countBuckets(RedisConnection connection, String prefix, long maxTtlMillis,
+                              AtomicLong entries, AtomicLong bytes) {
+        long bucketMillis = tokenBlacklistService.bucketMillis();
+        long now = System.currentTimeMillis();
+        long first = now / bucketMillis;
+        long last = (now + maxTtlMillis) / bucketMillis;
+
+        List<Object> lengths = redisTemplate.executePipelined((RedisCallback<Object>) pipeline -> {
+            for (long bucket = first; bucket <= last; bucket++) {
+                pipeline.hashCommands().hLen(bucketKey(prefix, bucket));
+            }
+            return null;
+        }, RedisSerializer.string());
+
+        long total = 0;
+        long sampledBytes = 0;
+        long sampledEntries = 0;
+        int sampled = 0;
+        for (int i = 0; i < lengths.size(); i++) {
+            long length = lengths.get(i) instanceof Number n ? n.longValue() : 0;
+            total += length;
+            if (length > 0 && sampled < sampleSize) {
+                sampledBytes += memoryUsage(connection, bucketKey(prefix, first + i));
+                sampledEntries += length;
+                sampled++;
+            }
+        }
+
+        entries.set(total);
+        bytes.set(sampledEntries == 0 ? 0 : sampledBytes * total / sampledEntries);
+    }
+
+    private static byte[] bucketKey(String prefix, long bucket) {
+        return TokenBlacklistService.bucketKey(prefix, bucket).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long memoryUsage(RedisConnection connection, byte[] key) {
+        Object usage = connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key);
+        if (usage instanceof Number n) {
+            return n.longValue();
+        }
+        if (usage instanceof byte[] raw) {
+            return Long.parseLong(new String(raw, StandardCharsets.UTF_8));
+        }
+        return 0;
+    }
+}
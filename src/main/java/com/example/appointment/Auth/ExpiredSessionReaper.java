@@ -0,0 +1,72 @@
+package com.example.appointment.Auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes expired user sessions in small batches so the table and its indexes stop growing.
+ *
+ * Each batch is its own short transaction. A run deletes at most max-batches-per-run batches
+ * and never sleeps on the shared scheduler thread, so the reap rate is capped at
+ * batch-size * max-batches-per-run per interval and a backlog drains over several runs
+ * instead of competing with login traffic.
+ */
+@Component
+@Slf4j
+public class ExpiredSessionReaper {
+
+    private final UserSessionRepository userSessionRepository;
+    private final Counter reapedCounter;
+    private final Timer batchTimer;
+
+    @Value("${auth.session-reaper.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${auth.session-reaper.max-batches-per-run:10}")
+    private int maxBatchesPerRun = 10;
+
+    public ExpiredSessionReaper(UserSessionRepository userSessionRepository, MeterRegistry meterRegistry) {
+        this.userSessionRepository = userSessionRepository;
+        this.reapedCounter = Counter.builder("auth.sessions.reaped")
+                .description("Expired user sessions deleted by the reaper")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("auth.sessions.reap.batch.duration")
+                .description("Time to delete one batch of expired sessions")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${auth.session-reaper.interval-ms:60000}",
+            fixedDelayString = "${auth.session-reaper.interval-ms:60000}")
+    public void reapExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                long started = System.nanoTime();
+                int deleted = userSessionRepository.deleteExpiredBatch(now, batchSize);
+                batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+                reapedCounter.increment(deleted);
+                total += deleted;
+                if (deleted < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to reap expired sessions", e);
+        }
+
+        if (total > 0) {
+            log.info("Reaped {} expired sessions", total);
+        }
+    }
+}
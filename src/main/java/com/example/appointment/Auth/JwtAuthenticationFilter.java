@@ -1,7 +1,5 @@
 package com.example.appointment.Auth;
 
-import com.example.appointment.User.UserModel;
-import com.example.appointment.User.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,8 +24,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
-    private final TokenBlacklistService tokenBlacklistService;
 
     @Override
     protected void doFilterInternal(
@@ -37,38 +33,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
+        final String jwt = authHeader.substring(7);
 
         try {
-            userEmail = jwtUtil.extractEmail(jwt);
+            // Verified once; every claim below comes from this parse
+            ParsedToken token = jwtUtil.parseToken(jwt);
+            String userEmail = token.email();
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                var userOptional = userRepository.findByEmail(userEmail);
-
-                if (userOptional.isPresent() && jwtUtil.validateToken(jwt)) {
-                    // Extra blacklist check for defense in depth
-                    String jti = jwtUtil.extractJti(jwt);
-                    if (jti != null && tokenBlacklistService.isAccessTokenBlacklisted(jti)) {
-                        logger.warn("Blacklisted token attempted to authenticate. JTI: " + jti);
-                        filterChain.doFilter(request, response);
-                        return;
-                    }
-
-                    UserModel user = userOptional.get();
-                    String role = jwtUtil.extractRole(jwt);
+                if (!jwtUtil.isValid(token)) {
+                    logger.warn("Expired or blacklisted token attempted to authenticate. JTI: " + token.jti());
+                    filterChain.doFilter(request, response);
+                    return;
+                }
 
+                // Refresh tokens carry no userId or role and never authenticate a request
+                AuthenticatedUser principal = AuthenticatedUser.of(token);
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            user,
+                            principal,
                             null,
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role().name()))
                     );
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
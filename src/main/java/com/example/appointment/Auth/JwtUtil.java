@@ -1,6 +1,7 @@
 package com.example.appointment.Auth;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -16,6 +17,8 @@ import java.util.function.Function;
 public class JwtUtil {
 
     private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final ParsedTokenCache parsedTokenCache;
     private final TokenBlacklistService tokenBlacklistService;
 
     @Value("${jwt.access-token-expiration}")
@@ -24,8 +27,12 @@ public class JwtUtil {
     @Value("${jwt.refresh-token-expiration}")
     private Long refreshTokenExpiration;
 
-    public JwtUtil(TokenBlacklistService tokenBlacklistService) {
+    public JwtUtil(TokenBlacklistService tokenBlacklistService,
+                   @Value("${jwt.parse-cache.size:4096}") int parseCacheSize) {
         this.signingKey = Jwts.SIG.HS256.key().build();
+        // Parsers are immutable and thread-safe, so one is enough
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.parsedTokenCache = parseCacheSize > 0 ? new ParsedTokenCache(parseCacheSize) : null;
         this.tokenBlacklistService = tokenBlacklistService;
     }
 
@@ -37,25 +44,21 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
-        claims.put("jti", UUID.randomUUID().toString());
-
-        String token = createToken(claims, email, accessTokenExpiration);
-
-        // Track this access token for the user
-        String jti = extractJti(token);
-        tokenBlacklistService.trackUserAccessToken(userId, jti, accessTokenExpiration);
 
-        return token;
+        claims.put("jti", UUID.randomUUID().toString());
+        Date now = new Date();
+        // iat only keeps whole seconds; revocation by user is checked against this instead
+        claims.put(ParsedToken.ISSUED_AT_MILLIS_CLAIM, now.getTime());
+        return createToken(claims, email, now, accessTokenExpiration);
     }
 
     public String generateRefreshToken(String email) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("jti", UUID.randomUUID().toString());
-        return createToken(claims, email, refreshTokenExpiration);
+        return createToken(claims, email, new Date(), refreshTokenExpiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject, Long expiration) {
-        Date now = new Date();
+    private String createToken(Map<String, Object> claims, String subject, Date now, Long expiration) {
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
@@ -67,30 +70,54 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Verify the token once and return its claims. Tokens seen recently are served from a
+     * small cache without verifying the signature again.
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public ParsedToken parseToken(String token) {
+        if (parsedTokenCache == null) {
+            return ParsedToken.of(extractAllClaims(token));
+        }
+
+        byte[] digest = ParsedTokenCache.digest(token);
+        ParsedToken parsed = parsedTokenCache.get(digest);
+        if (parsed == null) {
+            parsed = ParsedToken.of(extractAllClaims(token));
+            parsedTokenCache.put(digest, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Fixed-width SHA-256 of the raw token, used to store and look up sessions.
+     */
+    public byte[] digest(String token) {
+        return ParsedTokenCache.digest(token);
+    }
+
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).email();
     }
 
     public Long extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", Long.class));
+        return parseToken(token).userId();
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return parseToken(token).role();
     }
 
     public String extractJti(String token) {
-        return extractClaim(token, claims -> claims.get("jti", String.class));
+        return parseToken(token).jti();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(parseToken(token).expiresAt());
     }
 
     public long getRemainingTtl(String token) {
-        Date expiration = extractExpiration(token);
-        Date now = new Date();
-        return expiration.getTime() - now.getTime();
+        return parseToken(token).remainingTtlMillis();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -99,45 +126,39 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parseToken(token).isExpired();
     }
 
-    public Boolean validateToken(String token, String email) {
-        final String tokenEmail = extractEmail(token);
-        if (!tokenEmail.equals(email) || isTokenExpired(token)) {
+    /**
+     * @return true if the already parsed token has not expired or been revoked
+     */
+    public boolean isValid(ParsedToken token) {
+        if (token.isExpired()) {
             return false;
         }
 
-        // Check if token is blacklisted
-        String jti = extractJti(token);
-        if (jti != null && tokenBlacklistService.isAccessTokenBlacklisted(jti)) {
+        // Revoked by "log out everywhere"; answered locally without Redis
+        if (tokenBlacklistService.isRevokedForUser(token.userId(), token.issuedAt())) {
             return false;
         }
 
-        return true;
+        // Check if token is blacklisted
+        String jti = token.jti();
+        return jti == null || !tokenBlacklistService.isAccessTokenBlacklisted(jti, token.expiresAt());
+    }
+
+    public Boolean validateToken(String token, String email) {
+        ParsedToken parsed = parseToken(token);
+        return parsed.email().equals(email) && isValid(parsed);
     }
 
     public Boolean validateToken(String token) {
         try {
-            if (isTokenExpired(token)) {
-                return false;
-            }
-
-            // Check if token is blacklisted
-            String jti = extractJti(token);
-            if (jti != null && tokenBlacklistService.isAccessTokenBlacklisted(jti)) {
-                return false;
-            }
-
-            return true;
+            return isValid(parseToken(token));
         } catch (Exception e) {
             return false;
         }
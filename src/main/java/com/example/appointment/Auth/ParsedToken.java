@@ -0,0 +1,43 @@
+package com.example.appointment.Auth;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature has already been verified. Immutable, so it can be cached
+ * and shared between threads.
+ */
+public record ParsedToken(String email, Long userId, String role, String jti, Instant issuedAt, Instant expiresAt) {
+
+    // Issue time in milliseconds, written into access tokens next to the whole-second iat
+    static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    static ParsedToken of(Claims claims) {
+        return new ParsedToken(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                claims.get("jti", String.class),
+                issuedAt(claims),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+        );
+    }
+
+    // Tokens issued before the claim existed fall back to iat, which is never later than the real issue time
+    private static Instant issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        if (issuedAtMillis != null) {
+            return Instant.ofEpochMilli(issuedAtMillis);
+        }
+        return claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant();
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+
+    public long remainingTtlMillis() {
+        return expiresAt == null ? 0 : expiresAt.toEpochMilli() - System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.appointment.Auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of verified tokens keyed by the SHA-256 of the raw token, so the token
+ * itself is never kept in memory.
+ *
+ * Direct-mapped: each digest has exactly one slot and a newer token simply replaces whatever
+ * was there. Lookups and inserts are a single array read or write with no locking.
+ */
+final class ParsedTokenCache {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    /**
+     * @param size Number of slots, rounded up to a power of two
+     */
+    ParsedTokenCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return The cached claims, or null if the token is not cached or has expired
+     */
+    ParsedToken get(byte[] digest) {
+        Entry entry = slots.get(indexOf(digest));
+        if (entry == null || !MessageDigest.isEqual(entry.digest, digest) || entry.token.isExpired()) {
+            return null;
+        }
+        return entry.token;
+    }
+
+    void put(byte[] digest, ParsedToken token) {
+        slots.set(indexOf(digest), new Entry(digest, token));
+    }
+
+    static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private int indexOf(byte[] digest) {
+        int hash = (digest[0] & 0xff) | (digest[1] & 0xff) << 8 | (digest[2] & 0xff) << 16 | (digest[3] & 0xff) << 24;
+        return hash & mask;
+    }
+
+    private record Entry(byte[] digest, ParsedToken token) {}
+}
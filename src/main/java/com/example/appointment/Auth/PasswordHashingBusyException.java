@@ -0,0 +1,11 @@
+package com.example.appointment.Auth;
+
+/**
+ * Thrown when the password hashing executor is saturated; controllers answer 429.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
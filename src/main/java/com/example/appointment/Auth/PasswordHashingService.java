@@ -0,0 +1,87 @@
+package com.example.appointment.Auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs BCrypt on a dedicated bounded pool instead of the request thread.
+ *
+ * At most pool size hashes run at once and queue-capacity wait; anything beyond that fails
+ * fast with {@link PasswordHashingBusyException} so a login storm turns into 429s rather than
+ * exhausted Tomcat threads and DB connections. Callers must not hold a transaction while
+ * calling in.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor passwordHashingExecutor;
+    private final Counter rejectedCounter;
+    private final Timer hashTimer;
+
+    @Value("${auth.password-hashing.timeout-ms:5000}")
+    private long timeoutMillis = 5000;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  ThreadPoolExecutor passwordHashingExecutor,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+                .description("Hash requests rejected because the pool was saturated")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("auth.password.hashing.duration")
+                .description("Time from submitting a hash request to its result, queueing included")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.password.hashing.queue.size", passwordHashingExecutor, executor -> executor.getQueue().size());
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @return true if the hash uses an older algorithm or a lower cost than the current encoder
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        long started = System.nanoTime();
+        Future<T> future;
+        try {
+            future = passwordHashingExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Too many concurrent password checks, try again shortly");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new PasswordHashingBusyException("Password check timed out, try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password hashing failed", e.getCause());
+        } finally {
+            hashTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
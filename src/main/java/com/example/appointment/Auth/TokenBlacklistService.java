@@ -2,11 +2,14 @@ package com.example.appointment.Auth;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -16,187 +19,241 @@ import java.util.concurrent.TimeUnit;
 public class TokenBlacklistService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final AccessTokenBlacklistFilter blacklistFilter;
 
-    private static final String ACCESS_BLACKLIST_PREFIX = "blacklist:access:";
-    private static final String REFRESH_BLACKLIST_PREFIX = "blacklist:refresh:";
-    private static final String USER_ACCESS_TOKENS_PREFIX = "user:access:";
+    static final String ACCESS_BLACKLIST_PREFIX = "blacklist:access:";
+    static final String REFRESH_BLACKLIST_PREFIX = "blacklist:refresh:";
+    // Bucket hashes live under the type prefix: blacklist:access:b:{expiry bucket}
+    static final String BUCKET_INFIX = "b:";
+    static final String USER_REVOKED_PREFIX = "revoked:user:";
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+
+    // "keys": one key with its own TTL per JTI; "buckets": one hash per expiry bucket
+    @Value("${jwt.blacklist.layout:keys}")
+    private String layout = "keys";
+
+    @Value("${jwt.blacklist.bucket-ms:300000}")
+    private long bucketMillis = 300000;
 
     /**
-     * Blacklist an access token with TTL
+     * Blacklist an access token until it expires
      * @param jti JWT ID of the token
-     * @param ttlMillis Time to live in milliseconds
+     * @param expiresAt Expiry of the token, which also picks its bucket in the bucket layout
      */
-    public void blacklistAccessToken(String jti, long ttlMillis) {
+    public void blacklistAccessToken(String jti, Instant expiresAt) {
         if (jti == null || jti.isEmpty()) {
             log.warn("Attempted to blacklist access token with null/empty JTI");
             return;
         }
 
-        if (ttlMillis <= 0) {
+        if (expiresAt == null || !expiresAt.isAfter(Instant.now())) {
             log.debug("Access token already expired, skipping blacklist: {}", jti);
             return;
         }
 
-        try {
-            String key = ACCESS_BLACKLIST_PREFIX + jti;
-            Map<String, Object> value = Map.of(
-                    "blacklistedAt", System.currentTimeMillis(),
-                    "type", "access"
-            );
-            redisTemplate.opsForValue().set(key, value, ttlMillis, TimeUnit.MILLISECONDS);
-            log.debug("Blacklisted access token: {} with TTL: {}ms", jti, ttlMillis);
-        } catch (Exception e) {
-            log.error("Failed to blacklist access token: {}", jti, e);
+        if (!blacklistInPipeline(ACCESS_BLACKLIST_PREFIX, "access", Map.of(jti, expiresAt)).isEmpty()) {
+            blacklistFilter.publish(jti);
+            log.debug("Blacklisted access token: {} until {}", jti, expiresAt);
         }
     }
 
     /**
-     * Blacklist a refresh token with TTL
+     * Blacklist a refresh token until it expires
      * @param jti JWT ID of the refresh token
-     * @param ttlMillis Time to live in milliseconds
+     * @param expiresAt Expiry of the token, which also picks its bucket in the bucket layout
      */
-    public void blacklistRefreshToken(String jti, long ttlMillis) {
+    public void blacklistRefreshToken(String jti, Instant expiresAt) {
         if (jti == null || jti.isEmpty()) {
             log.warn("Attempted to blacklist refresh token with null/empty JTI");
             return;
         }
 
-        if (ttlMillis <= 0) {
+        if (expiresAt == null || !expiresAt.isAfter(Instant.now())) {
             log.debug("Refresh token already expired, skipping blacklist: {}", jti);
             return;
         }
 
-        try {
-            String key = REFRESH_BLACKLIST_PREFIX + jti;
-            Map<String, Object> value = Map.of(
-                    "blacklistedAt", System.currentTimeMillis(),
-                    "type", "refresh"
-            );
-            redisTemplate.opsForValue().set(key, value, ttlMillis, TimeUnit.MILLISECONDS);
-            log.debug("Blacklisted refresh token: {} with TTL: {}ms", jti, ttlMillis);
-        } catch (Exception e) {
-            log.error("Failed to blacklist refresh token: {}", jti, e);
+        if (!blacklistInPipeline(REFRESH_BLACKLIST_PREFIX, "refresh", Map.of(jti, expiresAt)).isEmpty()) {
+            log.debug("Blacklisted refresh token: {} until {}", jti, expiresAt);
         }
     }
 
     /**
-     * Check if an access token is blacklisted
-     * @param jti JWT ID of the token
-     * @return true if blacklisted, false otherwise
+     * Blacklist many refresh tokens, each until it expires, in one pipelined round trip
+     * @param expiresAtByJti Expiry of each token, keyed by JWT ID
      */
-    public boolean isAccessTokenBlacklisted(String jti) {
-        if (jti == null || jti.isEmpty()) {
-            return false;
+    public void blacklistRefreshTokens(Map<String, Instant> expiresAtByJti) {
+        blacklistInPipeline(REFRESH_BLACKLIST_PREFIX, "refresh", expiresAtByJti);
+    }
+
+    private List<String> blacklistInPipeline(String prefix, String type, Map<String, Instant> expiresAtByJti) {
+        long now = System.currentTimeMillis();
+        List<String> live = new ArrayList<>();
+        expiresAtByJti.forEach((jti, expiresAt) -> {
+            if (jti != null && !jti.isEmpty() && expiresAt != null && expiresAt.toEpochMilli() > now) {
+                live.add(jti);
+            }
+        });
+        if (live.isEmpty()) {
+            return live;
         }
 
         try {
-            String key = ACCESS_BLACKLIST_PREFIX + jti;
-            Boolean exists = redisTemplate.hasKey(key);
-            return Boolean.TRUE.equals(exists);
+            if (isBucketLayout()) {
+                writeBuckets(prefix, live, expiresAtByJti, now);
+            } else {
+                writeKeys(prefix, type, live, expiresAtByJti, now);
+            }
+            log.debug("Blacklisted {} {} tokens in one pipeline", live.size(), type);
+            return live;
         } catch (Exception e) {
-            log.error("Failed to check if access token is blacklisted: {}", jti, e);
-            return false; // Fail-safe: allow authentication if Redis fails
+            log.error("Failed to blacklist {} {} tokens", live.size(), type, e);
+            return List.of();
         }
     }
 
-    /**
-     * Check if a refresh token is blacklisted
-     * @param jti JWT ID of the refresh token
-     * @return true if blacklisted, false otherwise
-     */
-    public boolean isRefreshTokenBlacklisted(String jti) {
-        if (jti == null || jti.isEmpty()) {
-            return false;
-        }
+    private void writeKeys(String prefix, String type, List<String> jtis, Map<String, Instant> expiresAtByJti, long now) {
+        Map<String, Object> value = Map.of(
+                "blacklistedAt", now,
+                "type", type
+        );
+        byte[] serializedValue = valueSerializer().serialize(value);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String jti : jtis) {
+                connection.stringCommands().pSetEx((prefix + jti).getBytes(StandardCharsets.UTF_8),
+                        expiresAtByJti.get(jti).toEpochMilli() - now, serializedValue);
+            }
+            return null;
+        });
+    }
 
-        try {
-            String key = REFRESH_BLACKLIST_PREFIX + jti;
-            Boolean exists = redisTemplate.hasKey(key);
-            return Boolean.TRUE.equals(exists);
-        } catch (Exception e) {
-            log.error("Failed to check if refresh token is blacklisted: {}", jti, e);
-            return false; // Fail-safe: allow authentication if Redis fails
+    // Each JTI goes into the hash of the bucket its token expires in; the whole hash expires
+    // natively once the bucket has passed, so no per-entry TTL or sweep is needed
+    private void writeBuckets(String prefix, List<String> jtis, Map<String, Instant> expiresAtByJti, long now) {
+        byte[] serializedValue = valueSerializer().serialize(now);
+        Set<Long> buckets = new HashSet<>();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String jti : jtis) {
+                long bucket = bucketOf(expiresAtByJti.get(jti));
+                byte[] key = bucketKey(prefix, bucket).getBytes(StandardCharsets.UTF_8);
+                connection.hashCommands().hSet(key, jti.getBytes(StandardCharsets.UTF_8), serializedValue);
+                if (buckets.add(bucket)) {
+                    connection.keyCommands().pExpireAt(key, (bucket + 1) * bucketMillis);
+                }
+            }
+            return null;
+        });
+    }
+
+    private boolean exists(String prefix, String jti, Instant expiresAt) {
+        // Both layouts are consulted, so switching layout never forgets live entries
+        boolean inBucket = expiresAt != null && Boolean.TRUE.equals(redisTemplate.opsForHash()
+                .hasKey(bucketKey(prefix, bucketOf(expiresAt)), jti));
+        if (inBucket) {
+            return true;
         }
+        return Boolean.TRUE.equals(redisTemplate.hasKey(prefix + jti));
+    }
+
+    // Writers and readers both take the bucket from the token's own expiry
+    private long bucketOf(Instant expiresAt) {
+        return expiresAt.toEpochMilli() / bucketMillis;
+    }
+
+    boolean isBucketLayout() {
+        return "buckets".equalsIgnoreCase(layout);
+    }
+
+    long bucketMillis() {
+        return bucketMillis;
+    }
+
+    static String bucketKey(String prefix, long bucket) {
+        return prefix + BUCKET_INFIX + bucket;
     }
 
     /**
-     * Track a user's active access token
-     * @param userId User ID
-     * @param jti JWT ID of the access token
-     * @param ttlMillis Time to live in milliseconds
+     * Check if an access token is blacklisted. Redis is only asked when the local filter
+     * cannot rule the JTI out.
+     * @param jti JWT ID of the token
+     * @param expiresAt Expiry of the token, needed to find its bucket in the bucket layout
+     * @return true if blacklisted, false otherwise
      */
-    public void trackUserAccessToken(Long userId, String jti, long ttlMillis) {
-        if (userId == null || jti == null || jti.isEmpty()) {
-            log.warn("Invalid parameters for tracking user access token: userId={}, jti={}", userId, jti);
-            return;
+    public boolean isAccessTokenBlacklisted(String jti, Instant expiresAt) {
+        if (jti == null || jti.isEmpty()) {
+            return false;
         }
 
-        if (ttlMillis <= 0) {
-            log.debug("Token already expired, skipping tracking: {}", jti);
-            return;
+        if (!blacklistFilter.mightBeBlacklisted(jti)) {
+            return false;
         }
 
         try {
-            String key = USER_ACCESS_TOKENS_PREFIX + userId;
-            redisTemplate.opsForSet().add(key, jti);
-            redisTemplate.expire(key, ttlMillis, TimeUnit.MILLISECONDS);
-            log.debug("Tracking access token {} for user {}", jti, userId);
+            boolean exists = exists(ACCESS_BLACKLIST_PREFIX, jti, expiresAt);
+            if (!exists) {
+                blacklistFilter.recordFalsePositive();
+            }
+            return exists;
         } catch (Exception e) {
-            log.error("Failed to track access token for user {}: {}", userId, jti, e);
+            log.error("Failed to check if access token is blacklisted: {}", jti, e);
+            return false; // Fail-safe: allow authentication if Redis fails
         }
     }
 
     /**
-     * Remove a user's access token from tracking
-     * @param userId User ID
-     * @param jti JWT ID of the access token
+     * Check if an access token was issued before its user's last "log out everywhere"
+     * @param userId User ID from the token
+     * @param issuedAt Issue time of the token in milliseconds
+     * @return true if revoked, false otherwise
      */
-    public void removeUserAccessToken(Long userId, String jti) {
-        if (userId == null || jti == null || jti.isEmpty()) {
-            return;
+    public boolean isRevokedForUser(Long userId, Instant issuedAt) {
+        if (userId == null || issuedAt == null) {
+            return false;
         }
 
-        try {
-            String key = USER_ACCESS_TOKENS_PREFIX + userId;
-            redisTemplate.opsForSet().remove(key, jti);
-            log.debug("Removed access token {} from user {} tracking", jti, userId);
-        } catch (Exception e) {
-            log.error("Failed to remove access token from user {} tracking: {}", userId, jti, e);
+        Long revokedBefore;
+        if (blacklistFilter.isReady()) {
+            revokedBefore = blacklistFilter.revokedBefore(userId);
+        } else {
+            try {
+                Object value = redisTemplate.opsForValue().get(USER_REVOKED_PREFIX + userId);
+                revokedBefore = value instanceof Number epoch ? epoch.longValue() : null;
+            } catch (Exception e) {
+                log.error("Failed to check revocation of user {}", userId, e);
+                return false; // Fail-safe: allow authentication if Redis fails
+            }
         }
+
+        // Compared in milliseconds; a token issued in the very millisecond of the revocation is
+        // revoked too, as it may have been issued before it
+        return revokedBefore != null && issuedAt.toEpochMilli() <= revokedBefore;
     }
 
     /**
-     * Get all active access token JTIs for a user
-     * @param userId User ID
-     * @return Set of JTIs
+     * Check if a refresh token is blacklisted
+     * @param jti JWT ID of the refresh token
+     * @param expiresAt Expiry of the token, needed to find its bucket in the bucket layout
+     * @return true if blacklisted, false otherwise
      */
-    public Set<String> getUserAccessTokens(Long userId) {
-        if (userId == null) {
-            return Collections.emptySet();
+    public boolean isRefreshTokenBlacklisted(String jti, Instant expiresAt) {
+        if (jti == null || jti.isEmpty()) {
+            return false;
         }
 
         try {
-            String key = USER_ACCESS_TOKENS_PREFIX + userId;
-            Set<Object> members = redisTemplate.opsForSet().members(key);
-            if (members == null) {
-                return Collections.emptySet();
-            }
-
-            Set<String> jtiSet = new HashSet<>();
-            for (Object member : members) {
-                if (member instanceof String) {
-                    jtiSet.add((String) member);
-                }
-            }
-            return jtiSet;
+            return exists(REFRESH_BLACKLIST_PREFIX, jti, expiresAt);
         } catch (Exception e) {
-            log.error("Failed to get access tokens for user {}", userId, e);
-            return Collections.emptySet();
+            log.error("Failed to check if refresh token is blacklisted: {}", jti, e);
+            return false; // Fail-safe: allow authentication if Redis fails
         }
     }
 
     /**
-     * Blacklist all access tokens for a user (used in logout all sessions)
+     * Revoke all access tokens for a user (used in logout all sessions). A single
+     * "revoked before" epoch replaces one blacklist entry per token and lives exactly as long
+     * as the newest token it can revoke.
      * @param userId User ID
      */
     public void blacklistAllUserAccessTokens(Long userId) {
@@ -206,79 +263,32 @@ public class TokenBlacklistService {
         }
 
         try {
-            Set<String> tokens = getUserAccessTokens(userId);
-            log.info("Blacklisting {} access tokens for user {}", tokens.size(), userId);
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForValue().set(USER_REVOKED_PREFIX + userId, now, accessTokenExpiration, TimeUnit.MILLISECONDS);
+            indexUserRevocation(userId, now);
+            blacklistFilter.publishUserRevocation(userId, now);
 
-            for (String jti : tokens) {
-                // Use a default TTL of 30 minutes for blacklisting
-                // The actual token's remaining TTL should be used if available
-                blacklistAccessToken(jti, TimeUnit.MINUTES.toMillis(30));
-            }
-
-            // Clear the tracking set
-            String key = USER_ACCESS_TOKENS_PREFIX + userId;
-            redisTemplate.delete(key);
-
-            log.info("Successfully blacklisted all access tokens for user {}", userId);
+            log.info("Successfully revoked all access tokens for user {}", userId);
         } catch (Exception e) {
             log.error("Failed to blacklist all access tokens for user {}", userId, e);
         }
     }
 
-    /**
-     * Cleanup expired blacklist entries
-     * @return Number of cleaned entries
-     */
-    public long cleanupExpiredBlacklistEntries() {
-        long cleanedCount = 0;
-
-        try {
-            // Scan for access blacklist entries
-            cleanedCount += cleanupKeysByPattern(ACCESS_BLACKLIST_PREFIX + "*");
-
-            // Scan for refresh blacklist entries
-            cleanedCount += cleanupKeysByPattern(REFRESH_BLACKLIST_PREFIX + "*");
-
-            log.info("Cleanup completed. Total entries removed: {}", cleanedCount);
-        } catch (Exception e) {
-            log.error("Error during blacklist cleanup", e);
-        }
-
-        return cleanedCount;
+    // The per-user key answers lookups; the filter rebuild reads the bucket the revocation
+    // expires in, like the access token buckets, so it never has to list the per-user keys
+    private void indexUserRevocation(Long userId, long revokedAt) {
+        long bucket = (revokedAt + accessTokenExpiration) / bucketMillis;
+        byte[] key = bucketKey(USER_REVOKED_PREFIX, bucket).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hSet(key, userId.toString().getBytes(StandardCharsets.UTF_8),
+                    Long.toString(revokedAt).getBytes(StandardCharsets.UTF_8));
+            connection.keyCommands().pExpireAt(key, (bucket + 1) * bucketMillis);
+            return null;
+        });
     }
 
-    /**
-     * Cleanup keys matching a pattern
-     * @param pattern Redis key pattern
-     * @return Number of cleaned keys
-     */
-    private long cleanupKeysByPattern(String pattern) {
-        long count = 0;
-
-        try {
-            ScanOptions options = ScanOptions.scanOptions()
-                    .match(pattern)
-                    .count(100)
-                    .build();
-
-            Cursor<String> cursor = redisTemplate.scan(options);
-
-            while (cursor.hasNext()) {
-                String key = cursor.next();
-                Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
-
-                // Remove keys that have expired or have very short TTL (<1 second)
-                if (ttl != null && ttl < 1000) {
-                    redisTemplate.delete(key);
-                    count++;
-                }
-            }
-
-            cursor.close();
-        } catch (Exception e) {
-            log.error("Error cleaning up keys with pattern: {}", pattern, e);
-        }
-
-        return count;
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer() {
+        return (RedisSerializer<Object>) redisTemplate.getValueSerializer();
     }
 }
@@ -18,11 +18,16 @@ import java.time.LocalDateTime;
 public class UserSessionModel {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_sessions_seq")
+    @SequenceGenerator(name = "user_sessions_seq", sequenceName = "user_sessions_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true, columnDefinition = "TEXT")
-    private String refreshToken;
+    // SHA-256 of the refresh token; the token itself is never stored
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "BYTEA")
+    private byte[] tokenHash;
+
+    @Column(length = 36)
+    private String jti;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
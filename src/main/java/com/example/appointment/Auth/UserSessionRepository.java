@@ -2,21 +2,34 @@ package com.example.appointment.Auth;
 
 import com.example.appointment.User.UserModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserSessionRepository extends JpaRepository<UserSessionModel, Long> {
 
-    Optional<UserSessionModel> findByRefreshToken(String refreshToken);
+    Optional<UserSessionModel> findByTokenHash(byte[] tokenHash);
 
     List<UserSessionModel> findAllByUserId(Long userId);
 
-    void deleteByRefreshToken(String refreshToken);
+    void deleteByTokenHash(byte[] tokenHash);
 
     void deleteByUser(UserModel user);
 
     void deleteByUserId(Long userId);
+
+    // Delete up to :limit expired sessions found through idx_user_sessions_expires_at. ctid = ANY(ARRAY(...))
+    // plans as a TID scan; rows locked by a concurrent refresh or logout are skipped
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_sessions WHERE ctid = ANY(ARRAY(" +
+            "SELECT ctid FROM user_sessions WHERE expires_at < :now LIMIT :limit FOR UPDATE SKIP LOCKED))", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
@@ -17,7 +17,8 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class Holiday {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "holidays_seq")
+    @SequenceGenerator(name = "holidays_seq", sequenceName = "holidays_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "holiday_date", nullable = false)
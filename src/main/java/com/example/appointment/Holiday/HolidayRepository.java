@@ -7,4 +7,6 @@ import java.util.List;
 
 public interface HolidayRepository extends JpaRepository<Holiday,Long> {
     List<Holiday> findByHolidayDate(LocalDate date);
+
+    List<Holiday> findByHolidayDateBetween(LocalDate from, LocalDate to);
 }
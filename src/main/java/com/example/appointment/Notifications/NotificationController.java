@@ -36,7 +36,7 @@ public class NotificationController {
         }
 
         NotificationType notificationType = NotificationType.valueOf(request.type());
-        NotificationEntity notification = notificationService.createNotification(user, notificationType, request.data());
+        NotificationEntity notification = notificationService.createAndSendNotification(user, notificationType, request.data());
 
         NotificationResponse response = convertToResponse(notification);
         return ResponseEntity.ok(response);
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class NotificationEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_id_seq", allocationSize = 50)
     Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,21 @@
+package com.example.appointment.Notifications;
+
+import java.time.LocalDateTime;
+
+/**
+ * One inbox entry read straight from the notifications table, without loading the entity or its user.
+ */
+public interface NotificationInboxRow {
+
+    Long getId();
+
+    String getData();
+
+    LocalDateTime getReadedAt();
+
+    LocalDateTime getCreatedAt();
+
+    Long getUserId();
+
+    String getType();
+}
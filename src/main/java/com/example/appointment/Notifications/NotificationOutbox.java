@@ -0,0 +1,269 @@
+package com.example.appointment.Notifications;
+
+import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.Notifications.dto.WebSocketNotificationDTO;
+import com.example.appointment.User.UserModel;
+import com.example.appointment.config.WebSocketPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox table between the code that raises a notification and its insert and WebSocket push.
+ *
+ * A notification is written to notification_outbox in the caller's transaction, so it commits
+ * or rolls back with the caller's change and survives a crash after the commit. A worker thread
+ * on every instance claims up to batch-size entries with FOR UPDATE SKIP LOCKED, moves them into
+ * notifications in one transaction and then pushes them, so a slow database or broker never
+ * holds the caller. The worker is woken after each commit and otherwise polls.
+ */
+@Component
+@Slf4j
+public class NotificationOutbox {
+
+    private static final String DESTINATION = "/queue/notifications";
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxRepository outboxRepository;
+    private final WebSocketPublisher webSocketPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Counter failedCounter;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer deliveryTimer;
+
+    @Value("${notifications.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${notifications.outbox.poll-timeout-ms:500}")
+    private long pollTimeoutMillis = 500;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public NotificationOutbox(NotificationRepository notificationRepository,
+                              NotificationOutboxRepository outboxRepository,
+                              WebSocketPublisher webSocketPublisher,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.outboxRepository = outboxRepository;
+        this.webSocketPublisher = webSocketPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.failedCounter = Counter.builder("notifications.delivery.failed")
+                .description("Notifications that could not be inserted or pushed")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("notifications.batch.size")
+                .description("Notifications inserted per transaction")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("notifications.delivery.latency")
+                .description("Time from raising a notification to pushing it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drain, "notification-outbox");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Entries still in the table are delivered by another instance or after the restart
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        wakeUp.release();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Write a notification for the user to the outbox, in the current transaction if there is one.
+     */
+    public void enqueue(UserModel user, NotificationType type, String data) {
+        save(List.of(toEntry(user, type, data, LocalDateTime.now())));
+    }
+
+    /**
+     * Write several notifications to the outbox at once, in the current transaction if there is one.
+     * @param notifications unsaved notifications; only their user, type, data and creation time are used
+     */
+    public void enqueueAll(List<NotificationEntity> notifications) {
+        List<NotificationOutboxEntry> entries = new ArrayList<>(notifications.size());
+        for (NotificationEntity notification : notifications) {
+            entries.add(toEntry(notification.getUser(), notification.getType(), notification.getData(),
+                    notification.getCreatedAt() != null ? notification.getCreatedAt() : LocalDateTime.now()));
+        }
+        save(entries);
+    }
+
+    private static NotificationOutboxEntry toEntry(UserModel user, NotificationType type, String data, LocalDateTime createdAt) {
+        // The username is only for the pushed DTO; never load it here for a lazy proxy
+        String username = Hibernate.isInitialized(user) ? user.getUsername() : null;
+        return new NotificationOutboxEntry(null, user.getId(), username, type, data, createdAt);
+    }
+
+    private void save(List<NotificationOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        outboxRepository.saveAll(entries);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp.release();
+                }
+            });
+        } else {
+            wakeUp.release();
+        }
+    }
+
+    // Delivers full batches back to back, then waits for a commit or the poll timeout
+    private void drain() {
+        while (running) {
+            try {
+                if (deliverBatch() < batchSize) {
+                    wakeUp.tryAcquire(pollTimeoutMillis, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Notification worker failed, retrying on the next poll", e);
+                try {
+                    Thread.sleep(pollTimeoutMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim, insert and push one batch of outbox entries.
+     * @return Number of entries claimed
+     */
+    int deliverBatch() {
+        List<Long> claimedIds = new ArrayList<>();
+        List<Delivery> deliveries;
+        try {
+            deliveries = transactionTemplate.execute(status -> {
+                List<NotificationOutboxEntry> claimed = outboxRepository.claim(batchSize);
+                claimed.forEach(entry -> claimedIds.add(entry.getId()));
+                return moveToInbox(claimed);
+            });
+        } catch (Exception e) {
+            if (claimedIds.isEmpty()) {
+                throw e;
+            }
+            // One bad row (e.g. no partition for its month) must not hold up the rest of the batch
+            log.warn("Inserting {} notifications failed, retrying one by one: {}", claimedIds.size(), e.getMessage());
+            deliveries = new ArrayList<>();
+            for (Long id : claimedIds) {
+                deliveries.addAll(deliverOne(id));
+            }
+        }
+
+        for (Delivery delivery : deliveries) {
+            push(delivery);
+        }
+        log.debug("Delivered {} of {} claimed notifications", deliveries.size(), claimedIds.size());
+        return claimedIds.size();
+    }
+
+    private List<Delivery> deliverOne(Long id) {
+        try {
+            return transactionTemplate.execute(status -> outboxRepository.claimById(id)
+                    .map(entry -> moveToInbox(List.of(entry)))
+                    .orElse(List.of()));
+        } catch (NonTransientDataAccessException e) {
+            // Retrying cannot help, so the entry is dropped instead of blocking the outbox
+            failedCounter.increment();
+            log.error("Dropping notification {} from the outbox: {}", id, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllByIdInBatch(List.of(id)));
+            return List.of();
+        }
+    }
+
+    private List<Delivery> moveToInbox(List<NotificationOutboxEntry> claimed) {
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        // The unread-count triggers lock one counter row per user; taking them in user id order
+        // keeps two concurrent inserts from deadlocking. The sort is stable, so each user's
+        // notifications keep their order.
+        List<NotificationOutboxEntry> entries = new ArrayList<>(claimed);
+        entries.sort(Comparator.comparing(NotificationOutboxEntry::getUserId));
+
+        List<NotificationEntity> saved = notificationRepository.saveAll(toEntities(entries));
+        outboxRepository.deleteAllByIdInBatch(entries.stream().map(NotificationOutboxEntry::getId).toList());
+        batchSizeSummary.record(entries.size());
+
+        List<Delivery> deliveries = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            deliveries.add(new Delivery(entries.get(i), saved.get(i)));
+        }
+        return deliveries;
+    }
+
+    private void push(Delivery delivery) {
+        NotificationOutboxEntry entry = delivery.entry();
+        WebSocketNotificationDTO dto = new WebSocketNotificationDTO(delivery.notification().getId(), entry.getData(), null,
+                entry.getCreatedAt(), entry.getUserId(), entry.getUsername(), entry.getType());
+        try {
+            webSocketPublisher.sendToUser(entry.getUserId().toString(), DESTINATION, dto);
+            deliveryTimer.record(Duration.between(entry.getCreatedAt(), LocalDateTime.now()));
+        } catch (Exception e) {
+            // The row is stored, so the user still sees it in the inbox
+            failedCounter.increment();
+            log.warn("Failed to push notification {} to user {}: {}", delivery.notification().getId(), entry.getUserId(), e.getMessage());
+        }
+    }
+
+    private static List<NotificationEntity> toEntities(List<NotificationOutboxEntry> entries) {
+        List<NotificationEntity> entities = new ArrayList<>(entries.size());
+        for (NotificationOutboxEntry entry : entries) {
+            // Only the id is needed for the foreign key
+            UserModel user = new UserModel();
+            user.setId(entry.getUserId());
+
+            NotificationEntity notification = new NotificationEntity();
+            notification.setUser(user);
+            notification.setType(entry.getType());
+            notification.setData(entry.getData());
+            notification.setCreatedAt(entry.getCreatedAt());
+            entities.add(notification);
+        }
+        return entities;
+    }
+
+    private record Delivery(NotificationOutboxEntry entry, NotificationEntity notification) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.appointment.Notifications;
+
+import com.example.appointment.Common.enums.NotificationType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification raised but not yet inserted into the inbox. Written in the transaction that
+ * raises it; claimed, moved into notifications and removed by {@link NotificationOutbox}.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Only the id, so raising a notification never loads the user
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // For the pushed message only; null when the caller's user was not loaded
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    private String data;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
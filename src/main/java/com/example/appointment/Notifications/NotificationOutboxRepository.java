@@ -0,0 +1,21 @@
+package com.example.appointment.Notifications;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntry, Long> {
+
+    // Lock up to :limit entries, oldest first, skipping rows already claimed by another node
+    @Query(value = "SELECT * FROM notification_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutboxEntry> claim(@Param("limit") int limit);
+
+    // Lock one entry unless another node has claimed it
+    @Query(value = "SELECT * FROM notification_outbox WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<NotificationOutboxEntry> claimById(@Param("id") Long id);
+}
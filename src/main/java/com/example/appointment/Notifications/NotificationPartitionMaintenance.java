@@ -0,0 +1,230 @@
+package com.example.appointment.Notifications;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of the notifications table in shape.
+ *
+ * Creates the partitions for the coming months ahead of time, since an insert into a month
+ * without a partition fails. With retention enabled, months older than retention-months are
+ * detached as a whole (and dropped unless retention-mode is detach), instead of deleting rows.
+ * Every run also finishes what an interrupted one left behind: pending detaches are finalized
+ * and expired partitions that were detached but not dropped are dropped.
+ * A Postgres advisory lock keeps two instances from doing this at the same time.
+ */
+@Component
+@Slf4j
+public class NotificationPartitionMaintenance {
+
+    private static final String PARTITION_PREFIX = "notifications_";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final long ADVISORY_LOCK_KEY = 0x6e6f7469665f7061L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter expiredCounter;
+
+    // Partitions kept ready beyond the current month
+    @Value("${notifications.partitions.premake-months:3}")
+    private int premakeMonths = 3;
+
+    // Months kept before the current one; 0 keeps everything
+    @Value("${notifications.retention.months:0}")
+    private int retentionMonths = 0;
+
+    // "drop" removes expired partitions, "detach" only takes them out of the table for archiving
+    @Value("${notifications.retention.mode:drop}")
+    private String retentionMode = "drop";
+
+    // How long a detach waits for the lock on the notifications table before giving up until the next run
+    @Value("${notifications.retention.lock-timeout-ms:5000}")
+    private long lockTimeoutMillis = 5000;
+
+    public NotificationPartitionMaintenance(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expiredCounter = Counter.builder("notifications.partitions.expired")
+                .description("Notification partitions detached by the retention policy")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${notifications.partitions.interval-ms:3600000}")
+    public void maintain() {
+        try {
+            // One connection throughout so the session-level advisory lock covers every step
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    log.debug("Another instance is maintaining notification partitions");
+                    return null;
+                }
+                try {
+                    createUpcomingPartitions(connection, YearMonth.now());
+                    if (retentionMonths > 0) {
+                        expirePartitions(connection, YearMonth.now().minusMonths(retentionMonths));
+                    }
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Notification partition maintenance failed", e);
+        }
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+
+    private void createUpcomingPartitions(Connection connection, YearMonth current) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i <= premakeMonths; i++) {
+                YearMonth month = current.plusMonths(i);
+                statement.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                        + " PARTITION OF notifications FOR VALUES FROM ('" + month.atDay(1)
+                        + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            }
+        }
+    }
+
+    // Every partition holding only months before the cutoff
+    private void expirePartitions(Connection connection, YearMonth cutoff) throws SQLException {
+        // Left over by an interrupted DETACH ... CONCURRENTLY, which blocks any other detach. Such a
+        // run never got to the counters, so they are adjusted once the detach is finalized.
+        for (String partition : listPartitions(connection, true)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE notifications DETACH PARTITION " + partition + " FINALIZE");
+                subtractUnread(statement, partition);
+            }
+            log.warn("Finalized pending detach of notification partition {}", partition);
+            expire(connection, partition);
+        }
+
+        for (String partition : listPartitions(connection, false)) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(cutoff)) {
+                detach(connection, partition);
+                expire(connection, partition);
+            }
+        }
+
+        // Detached by a run that failed before dropping them
+        if (!"detach".equalsIgnoreCase(retentionMode)) {
+            for (String table : listDetachedTables(connection)) {
+                YearMonth month = monthOf(table);
+                if (month != null && month.isBefore(cutoff)) {
+                    drop(connection, table);
+                }
+            }
+        }
+    }
+
+    private void expire(Connection connection, String partition) throws SQLException {
+        if ("detach".equalsIgnoreCase(retentionMode)) {
+            log.info("Detached notification partition {}, kept as a standalone table", partition);
+        } else {
+            drop(connection, partition);
+        }
+        expiredCounter.increment();
+    }
+
+    // Detach and take the partition's unread rows off the counters in one transaction, so a failure
+    // leaves both as they were. A plain DETACH locks the parent briefly; lock_timeout keeps it from
+    // queueing behind a long query and stalling the inbox, and the next run retries.
+    private void detach(Connection connection, String partition) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LOCAL lock_timeout = '" + lockTimeoutMillis + "ms'");
+            statement.execute("ALTER TABLE notifications DETACH PARTITION " + partition);
+            subtractUnread(statement, partition);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Detaching does not fire the delete triggers, so take the partition's unread rows off the counters
+    private static void subtractUnread(Statement statement, String partition) throws SQLException {
+        statement.executeUpdate("UPDATE user_notification_counts c SET unread_count = c.unread_count - d.unread "
+                + "FROM (SELECT user_id, count(*) AS unread FROM " + partition
+                + " WHERE readed_at IS NULL GROUP BY user_id) d WHERE c.user_id = d.user_id");
+    }
+
+    private static void drop(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+        }
+        log.info("Dropped notification partition {}", table);
+    }
+
+    private List<String> listPartitions(Connection connection, boolean detachPending) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT c.relname FROM pg_inherits i "
+                     + "JOIN pg_class c ON c.oid = i.inhrelid "
+                     + "WHERE i.inhparent = 'notifications'::regclass AND i.inhdetachpending = " + detachPending
+                     + " ORDER BY c.relname")) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    // Plain tables in the current schema named like a partition that are no partition of anything
+    private List<String> listDetachedTables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT c.relname FROM pg_class c "
+                     + "WHERE c.relnamespace = current_schema()::regnamespace AND c.relkind = 'r' "
+                     + "AND NOT c.relispartition AND c.relname LIKE '" + PARTITION_PREFIX + "%' ORDER BY c.relname")) {
+            while (rs.next()) {
+                tables.add(rs.getString(1));
+            }
+        }
+        return tables;
+    }
+
+    private static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+        }
+    }
+}
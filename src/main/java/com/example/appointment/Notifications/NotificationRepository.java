@@ -1,8 +1,14 @@
 package com.example.appointment.Notifications;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,5 +17,56 @@ public interface NotificationRepository extends JpaRepository<NotificationEntity
 
     List<NotificationEntity> findByUserIdAndType(Long userId, String type);
 
+    // Served from the partial index idx_notifications_user_unread
     List<NotificationEntity> findByUserIdAndReadedAtIsNull(Long userId);
+
+    // First inbox page, newest first, served from idx_notifications_user_created_id
+    @Query(value = "SELECT id AS \"id\", data AS \"data\", readed_at AS \"readedAt\", created_at AS \"createdAt\", " +
+            "user_id AS \"userId\", type AS \"type\" FROM notifications " +
+            "WHERE user_id = :userId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<NotificationInboxRow> findInboxPage(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // Next inbox page: seeks past the last (created_at, id) instead of skipping rows with OFFSET.
+    // The plain created_at bound is implied by the row comparison but lets Postgres prune newer partitions
+    @Query(value = "SELECT id AS \"id\", data AS \"data\", readed_at AS \"readedAt\", created_at AS \"createdAt\", " +
+            "user_id AS \"userId\", type AS \"type\" FROM notifications " +
+            "WHERE user_id = :userId AND created_at <= :createdAt AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<NotificationInboxRow> findInboxPageAfter(@Param("userId") Long userId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  @Param("limit") int limit);
+
+    // Maintained by triggers on notifications, see V18
+    @Query(value = "SELECT CAST(COALESCE((SELECT unread_count FROM user_notification_counts WHERE user_id = :userId), 0) AS BIGINT)",
+            nativeQuery = true)
+    long countUnreadByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationEntity n SET n.readedAt = :readAt WHERE n.user.id = :userId AND n.readedAt IS NULL")
+    int markAllAsRead(@Param("userId") Long userId, @Param("readAt") LocalDateTime readAt);
+
+    // Mark one notification read if it belongs to the user; already read ones keep their time.
+    // Empty when the notification does not exist or belongs to someone else
+    @Transactional
+    @Query(value = "UPDATE notifications SET readed_at = COALESCE(readed_at, :readAt) " +
+            "WHERE id = :id AND user_id = :userId " +
+            "RETURNING id AS \"id\", data AS \"data\", readed_at AS \"readedAt\", created_at AS \"createdAt\", " +
+            "user_id AS \"userId\", type AS \"type\"", nativeQuery = true)
+    List<NotificationInboxRow> markAsReadForUser(@Param("id") Long id, @Param("userId") Long userId,
+                                                 @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationEntity n SET n.readedAt = :readAt " +
+            "WHERE n.id IN :ids AND n.user.id = :userId AND n.readedAt IS NULL")
+    int markAsReadForUser(@Param("ids") Collection<Long> ids, @Param("userId") Long userId,
+                          @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NotificationEntity n WHERE n.id IN :ids AND n.user.id = :userId")
+    int deleteForUser(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
 }
@@ -1,59 +1,114 @@
 package com.example.appointment.Notifications;
 
 import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.Notifications.dto.NotificationPage;
+import com.example.appointment.Notifications.dto.NotificationResponse;
 import com.example.appointment.Notifications.dto.WebSocketNotificationDTO;
 import com.example.appointment.User.UserModel;
+import com.example.appointment.config.WebSocketPublisher;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 @Service
+@Slf4j
 public class NotificationService {
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private WebSocketPublisher webSocketPublisher;
 
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    @Qualifier("notificationDeliveryExecutor")
+    private TaskExecutor deliveryExecutor;
+
+    // Last push queued for each user with pushes in flight
+    private final Map<Long, CompletableFuture<Void>> pendingPushes = new ConcurrentHashMap<>();
+
+    @Value("${notifications.inbox.default-page-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${notifications.inbox.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${notifications.inbox.max-batch-size:500}")
+    private int maxBatchSize = 500;
+
 
     public void sendNotificationToUser(Long userId, NotificationEntity notification) {
         try {
-            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
-            System.out.println(" send WebSocket notification");
-            System.out.println("User ID: " + userId);
-            System.out.println("Notification: " + notification.getData());
-            System.out.println("Destination: /user/" + userId + "/queue/notifications");
-
             // Convert to DTO to avoid lazy loading issues
             WebSocketNotificationDTO notificationDTO = WebSocketNotificationDTO.fromEntity(notification);
 
-            messagingTemplate.convertAndSendToUser(
-                    userId.toString(),
-                    "/queue/notifications",
-                    notificationDTO  // ✅ Use DTO instead of full entity
-            );
-
-            System.out.println(" the notification sent succesfully!");
-            System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+            // The DTO is built on the caller's thread while the session is open; only the push is handed off
+            deliverInOrder(userId, () -> {
+                try {
+                    webSocketPublisher.sendToUser(
+                            userId.toString(),
+                            "/queue/notifications",
+                            notificationDTO  // ✅ Use DTO instead of full entity
+                    );
+                    log.debug("Pushed notification {} to /user/{}/queue/notifications", notification.getId(), userId);
+                } catch (Exception e) {
+                    log.warn("Failed to push notification {} to user {}: {}", notification.getId(), userId, e.getMessage());
+                }
+            });
         } catch (Exception e) {
-            System.err.println(" an erroe ocured : " + e.getMessage());
-            e.printStackTrace();
+            log.error("Failed to prepare notification {} for user {}", notification.getId(), userId, e);
         }
     }
 
+    // Pushes to one user run one after another on the delivery executor, so they arrive in the
+    // order they were raised; pushes to different users still run in parallel
+    private void deliverInOrder(Long userId, Runnable push) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous = pendingPushes.put(userId, done);
+        (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous)
+                .thenRunAsync(push, deliveryExecutor)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.warn("Failed to hand off a notification push for user {}: {}", userId, e.getMessage());
+                    }
+                    pendingPushes.remove(userId, done);
+                    done.complete(null);
+                });
+    }
+
     public void broadcastNotification(NotificationEntity notification) {
-        messagingTemplate.convertAndSend(
+        webSocketPublisher.send(
                 "/topic/notifications",
                 notification.getData()
         );
     }
 
-    public NotificationEntity createNotification(UserModel user, NotificationType type, String data) {
+    /**
+     * Write a notification for the user to the outbox in the current transaction. The outbox worker
+     * inserts and pushes it once the transaction commits; it is discarded if it rolls back.
+     */
+    public void createNotification(UserModel user, NotificationType type, String data) {
+        notificationOutbox.enqueue(user, type, data);
+    }
+
+    /**
+     * Insert a notification right away and push it. Only for callers that need the stored row.
+     */
+    public NotificationEntity createAndSendNotification(UserModel user, NotificationType type, String data) {
         NotificationEntity notification = new NotificationEntity();
         notification.setUser(user);
         notification.setType(type);
@@ -68,6 +123,14 @@ public class NotificationService {
         return notification;
     }
 
+    /**
+     * Write several unsaved notifications to the outbox at once. Like createNotification they are
+     * inserted and pushed by the outbox worker after the current transaction commits.
+     */
+    public void createNotifications(List<NotificationEntity> notifications) {
+        notificationOutbox.enqueueAll(notifications);
+    }
+
     public List<NotificationEntity> getNotificationsByUser(Long userId) {
         return notificationRepository.findByUserId(userId);
     }
@@ -76,16 +139,84 @@ public class NotificationService {
         return notificationRepository.findByUserIdAndReadedAtIsNull(userId);
     }
 
-    public NotificationEntity markAsRead(Long notificationId) {
-        NotificationEntity notification = notificationRepository.findById(notificationId).orElse(null);
-        if (notification != null) {
-            notification.setReadedAt(LocalDateTime.now());
-            return notificationRepository.save(notification);
+    /**
+     * One page of the user's inbox, newest first.
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit Page size, capped at notifications.inbox.max-page-size
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public NotificationPage getInboxPage(Long userId, String cursor, Integer limit) {
+        int pageSize = Math.min(limit == null || limit <= 0 ? defaultPageSize : limit, maxPageSize);
+
+        // One extra row tells whether another page follows
+        List<NotificationInboxRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findInboxPage(userId, pageSize + 1);
+        } else {
+            InboxCursor after = InboxCursor.decode(cursor);
+            rows = notificationRepository.findInboxPageAfter(userId, after.createdAt(), after.id(), pageSize + 1);
         }
-        return null;
+
+        boolean hasMore = rows.size() > pageSize;
+        List<NotificationResponse> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (NotificationInboxRow row : hasMore ? rows.subList(0, pageSize) : rows) {
+            items.add(toResponse(row));
+        }
+        String nextCursor = hasMore ? InboxCursor.of(rows.get(pageSize - 1)).encode() : null;
+        return new NotificationPage(items, nextCursor);
+    }
+
+    public long countUnread(Long userId) {
+        return notificationRepository.countUnreadByUserId(userId);
+    }
+
+    /**
+     * Mark every unread notification of the user as read in one UPDATE.
+     * @return Number of notifications marked
+     */
+    public int markAllAsRead(Long userId) {
+        return notificationRepository.markAllAsRead(userId, LocalDateTime.now());
+    }
+
+    /**
+     * Mark a notification read in one statement, checking ownership in the same UPDATE.
+     * @return The updated notification, or null if it does not exist or is not the user's
+     */
+    public NotificationResponse markAsReadForUser(Long notificationId, Long userId) {
+        List<NotificationInboxRow> rows = notificationRepository.markAsReadForUser(notificationId, userId, LocalDateTime.now());
+        return rows.isEmpty() ? null : toResponse(rows.get(0));
+    }
+
+    /**
+     * Mark the user's unread notifications with the given ids as read. Ids of other users are ignored.
+     * @return Number of notifications marked
+     */
+    public int markAsReadForUser(List<Long> notificationIds, Long userId) {
+        checkBatchSize(notificationIds);
+        return notificationRepository.markAsReadForUser(notificationIds, userId, LocalDateTime.now());
+    }
+
+    /**
+     * Delete the user's notifications among the ids. Ids of other users are ignored.
+     * @return Number of notifications deleted
+     */
+    public int deleteForUser(List<Long> notificationIds, Long userId) {
+        checkBatchSize(notificationIds);
+        return notificationRepository.deleteForUser(notificationIds, userId);
+    }
+
+    private void checkBatchSize(List<Long> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty() || notificationIds.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Between 1 and " + maxBatchSize + " notification ids are required");
+        }
+    }
+
+    private static NotificationResponse toResponse(NotificationInboxRow row) {
+        return new NotificationResponse(row.getId(), row.getData(), row.getReadedAt(), row.getCreatedAt(),
+                row.getUserId(), NotificationType.valueOf(row.getType()));
     }
 
     public void deleteNotification(Long notificationId) {
         notificationRepository.deleteById(notificationId);
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package com.example.appointment.Notifications;
 
+import com.example.appointment.Auth.AuthenticatedUser;
+import com.example.appointment.Notifications.dto.NotificationIdsRequest;
+import com.example.appointment.Notifications.dto.NotificationPage;
 import com.example.appointment.Notifications.dto.NotificationResponse;
-import com.example.appointment.User.UserModel;
 import com.example.appointment.User.UserService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
@@ -13,6 +15,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,38 +23,83 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasAnyRole('ADMIN','CUSTOMER','STAFF')")
 public class UserNotificationController {
 
-    @Autowired
-    private NotificationService notificationService;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @Autowired
-    private NotificationRepository notificationRepository;
+    private NotificationService notificationService;
 
     @Autowired
     private UserService userService;
 
 
+    /**
+     * The newest notifications, at most one page of the largest size, as a plain list.
+     * When older ones follow, the X-Next-Cursor header holds the cursor for /page.
+     * @deprecated Use /page, which returns the cursor in the body
+     */
+    @Deprecated
     @GetMapping
     public ResponseEntity<List<NotificationResponse>> getUserNotifications() {
-        UserModel currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(401).build();
         }
 
-        List<NotificationEntity> notifications = notificationService.getNotificationsByUser(currentUser.getId());
-        List<NotificationResponse> responses = notifications.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(responses);
+        // Never the whole inbox; the limit is capped at notifications.inbox.max-page-size
+        NotificationPage page = notificationService.getInboxPage(currentUser.id(), null, Integer.MAX_VALUE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Inbox page by page, newest first. Pass the returned nextCursor to get the following page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<NotificationPage> getUserNotificationPage(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer limit) {
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        try {
+            return ResponseEntity.ok(notificationService.getInboxPage(currentUser.id(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/unread/count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount() {
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        return ResponseEntity.ok(Map.of("unread", notificationService.countUnread(currentUser.id())));
+    }
+
+    @PutMapping("/read-all")
+    public ResponseEntity<Map<String, Integer>> markAllNotificationsAsRead() {
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        return ResponseEntity.ok(Map.of("updated", notificationService.markAllAsRead(currentUser.id())));
     }
 
     @GetMapping("/unread")
     public ResponseEntity<List<NotificationResponse>> getUnreadUserNotifications() {
-        UserModel currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(401).build();
         }
 
-        List<NotificationEntity> notifications = notificationService.getUnreadNotificationsByUser(currentUser.getId());
+        List<NotificationEntity> notifications = notificationService.getUnreadNotificationsByUser(currentUser.id());
         List<NotificationResponse> responses = notifications.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
@@ -60,52 +108,68 @@ public class UserNotificationController {
 
     @PutMapping("/{id}/read")
     public ResponseEntity<NotificationResponse> markNotificationAsRead(@PathVariable Long id) {
-        UserModel currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(401).build();
         }
 
-        // Verify that the notification belongs to the current user
-        NotificationEntity notification = notificationRepository.findById(id).orElse(null);
-        if (notification == null || !notification.getUser().getId().equals(currentUser.getId())) {
+        // Ownership is checked by the UPDATE itself; nothing comes back for someone else's notification
+        NotificationResponse response = notificationService.markAsReadForUser(id, currentUser.id());
+        if (response == null) {
             return ResponseEntity.status(403).build();
         }
+        return ResponseEntity.ok(response);
+    }
 
-        NotificationEntity updatedNotification = notificationService.markAsRead(id);
-        if (updatedNotification == null) {
-            return ResponseEntity.notFound().build();
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markNotificationsAsRead(@RequestBody NotificationIdsRequest request) {
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        try {
+            return ResponseEntity.ok(Map.of("updated", notificationService.markAsReadForUser(request.ids(), currentUser.id())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        NotificationResponse response = convertToResponse(updatedNotification);
-        return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("delete/{id}")
     public ResponseEntity<Void> deleteUserNotification(@PathVariable Long id) {
-        UserModel currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         if (currentUser == null) {
             return ResponseEntity.status(401).build();
         }
 
-
-        NotificationEntity notification = notificationRepository.findById(id).orElse(null);
-        if (notification == null || !notification.getUser().getId().equals(currentUser.getId())) {
+        if (notificationService.deleteForUser(List.of(id), currentUser.id()) == 0) {
             return ResponseEntity.status(403).build();
         }
-
-        notificationService.deleteNotification(id);
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/delete")
+    public ResponseEntity<Map<String, Integer>> deleteUserNotifications(@RequestBody NotificationIdsRequest request) {
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(401).build();
+        }
 
-    private UserModel getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
+        try {
+            return ResponseEntity.ok(Map.of("deleted", notificationService.deleteForUser(request.ids(), currentUser.id())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
 
+    private AuthenticatedUser getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
             return null;
         }
 
-        UserModel user = (UserModel) authentication.getPrincipal();
         return user;
     }
 
@@ -0,0 +1,6 @@
+package com.example.appointment.Notifications.dto;
+
+import java.util.List;
+
+public record NotificationIdsRequest(List<Long> ids) {
+}
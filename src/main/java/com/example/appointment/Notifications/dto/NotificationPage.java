@@ -0,0 +1,9 @@
+package com.example.appointment.Notifications.dto;
+
+import java.util.List;
+
+/**
+ * One page of the inbox, newest first. nextCursor is null on the last page.
+ */
+public record NotificationPage(List<NotificationResponse> items, String nextCursor) {
+}
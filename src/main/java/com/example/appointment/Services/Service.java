@@ -23,7 +23,8 @@ import java.util.Set;
 @NoArgsConstructor
 public class Service {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "services_seq")
+    @SequenceGenerator(name = "services_seq", sequenceName = "services_id_seq", allocationSize = 50)
     Long id;
 
     @Column(nullable = false, length = 128)
@@ -3,6 +3,7 @@ package com.example.appointment.User;
 import com.example.appointment.Appointment.Appointment;
 import com.example.appointment.Appointment.AppointmentDTO;
 import com.example.appointment.Appointment.AppointmentService;
+import com.example.appointment.Auth.PasswordHashingBusyException;
 import com.example.appointment.Common.enums.NotificationType;
 import com.example.appointment.Notifications.NotificationService;
 import lombok.extern.slf4j.Slf4j;
@@ -80,6 +81,9 @@ public class AdminController {
             UserResponse response = userService.createUser(request);
             log.info("Successfully created user with ID: {}", response.id());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (PasswordHashingBusyException e) {
+            log.warn("Password hashing saturated while creating user: {}", request.username());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
         } catch (Exception e) {
             log.error("Error creating user with username: {} - {}", request.username(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
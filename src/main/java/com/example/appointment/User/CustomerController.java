@@ -4,6 +4,7 @@ import com.example.appointment.Appointment.Appointment;
 import com.example.appointment.Appointment.AppointmentDTO;
 import com.example.appointment.Appointment.AppointmentService;
 import com.example.appointment.Appointment.AvailableSlotDTO;
+import com.example.appointment.Auth.AuthenticatedUser;
 import com.example.appointment.Common.enums.NotificationType;
 import com.example.appointment.Common.enums.UserRole;
 import com.example.appointment.Notifications.NotificationService;
@@ -40,8 +41,8 @@ public class CustomerController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long customerId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long customerId = currentUser.id();
             log.debug("Customer ID: {}", customerId);
 
             List<Appointment> appointments = appointmentService.getAppointmentsByCustomerId(customerId);
@@ -67,8 +68,8 @@ public class CustomerController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long customerId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long customerId = currentUser.id();
             log.debug("Customer ID: {}", customerId);
 
             List<Appointment> appointments = appointmentService.getAllAppointmentsByCustomerId(customerId);
@@ -94,8 +95,8 @@ public class CustomerController {
         try {
 
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long customerId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long customerId = currentUser.id();
 
             log.debug("Customer ID: {}, Appointment ID: {}", customerId, id);
 
@@ -123,8 +124,8 @@ public class CustomerController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long customerId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long customerId = currentUser.id();
             log.debug("Customer ID: {}, Appointment ID: {}", customerId, id);
             List<UserModel> admins=userService.findByRole(UserRole.ADMIN);
 
@@ -3,6 +3,7 @@ package com.example.appointment.User;
 import com.example.appointment.Appointment.Appointment;
 import com.example.appointment.Appointment.AppointmentDTO;
 import com.example.appointment.Appointment.AppointmentService;
+import com.example.appointment.Auth.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -33,8 +34,8 @@ public class StaffController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long staffId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long staffId = currentUser.id();
             log.debug("Staff ID: {}", staffId);
 
             List<Appointment> appointments = appointmentService.getAppointmentsByEmployeeId(staffId);
@@ -60,8 +61,8 @@ public class StaffController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long staffId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long staffId = currentUser.id();
             log.debug("Staff ID: {}", staffId);
 
             List<Appointment> appointments = appointmentService.getAllAppointmentsByEmployeeId(staffId);
@@ -87,8 +88,8 @@ public class StaffController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long staffId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long staffId = currentUser.id();
             log.debug("Staff ID: {}", staffId);
 
             List<Appointment> appointments = appointmentService.getAppointmentsByEmployeeIdAndStatus(staffId, Appointment.AppointmentStatus.SCHEDULED);
@@ -114,8 +115,8 @@ public class StaffController {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long staffId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long staffId = currentUser.id();
             log.debug("Staff ID: {}", staffId);
 
             List<Appointment> appointments = appointmentService.getAppointmentsByEmployeeIdAndStatus(staffId, Appointment.AppointmentStatus.COMPLETED);
@@ -141,8 +142,8 @@ public class StaffController {
         try {
             // الحصول على المستخدم الحالي
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            UserModel currentUser = (UserModel) authentication.getPrincipal();
-            Long customerId = currentUser.getId();
+            AuthenticatedUser currentUser = (AuthenticatedUser) authentication.getPrincipal();
+            Long customerId = currentUser.id();
 
             log.debug("Customer ID: {}, Appointment ID: {}", customerId, id);
 
@@ -2,7 +2,11 @@ package com.example.appointment.User;
 
 import com.example.appointment.Common.enums.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,4 +25,10 @@ public interface UserRepository extends JpaRepository<UserModel, Long> {
     List<UserModel> findUserModelByRole(UserRole role);
 
     Optional<UserModel> findUserById(Long id);
+
+    // Swap in a rehashed password unless the password changed since it was read
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserModel u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
@@ -1,4 +1,7 @@
 package com.example.appointment.User;
+import com.example.appointment.Auth.AuthenticatedUser;
+import com.example.appointment.Auth.PasswordHashingService;
+import com.example.appointment.Auth.TokenBlacklistService;
 import com.example.appointment.Common.enums.UserRole;
 import com.example.appointment.User.dto.CreateUserRequest;
 import com.example.appointment.User.dto.UpdateUserRequest;
@@ -7,7 +10,6 @@ import lombok.RequiredArgsConstructor;
 import org.apache.catalina.User;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +21,8 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenBlacklistService tokenBlacklistService;
 
     public List<UserModel> getAllUsers() {
         return userRepository.findAll();
@@ -30,13 +33,23 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    public UserModel getCurrentUser() {
+    /**
+     * Principal of the current request, built from the token without touching the database.
+     */
+    public AuthenticatedUser getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || authentication.getName() == null) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser principal)) {
             throw new RuntimeException("No authenticated user found");
         }
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
+        return principal;
+    }
+
+    /**
+     * Load the full entity of the current user. Only call this when more than the id, email
+     * or role is needed.
+     */
+    public UserModel getCurrentUser() {
+        return userRepository.findById(getCurrentPrincipal().id())
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
     }
 
@@ -50,7 +63,7 @@ public class UserService {
         user.setUsername(req.username());
         user.setEmail(req.email());
         user.setPhoneNumber(req.phoneNumber());
-        user.setPassword(passwordEncoder.encode(req.password()));
+        user.setPassword(passwordHashingService.encode(req.password()));
         user.setRole(req.role());
 
         userRepository.save(user);
@@ -87,6 +100,9 @@ public class UserService {
         user.setRole(req.role());
 
         userRepository.save(user);
+
+        // Tokens carry the email and role, so existing ones must not outlive the change
+        tokenBlacklistService.blacklistAllUserAccessTokens(user.getId());
         return mapToResponse(user);
     }
 
@@ -94,12 +110,12 @@ public class UserService {
         UserModel user = getUserByIdOrThrow(id);
         
         // Prevent admin from deleting themselves
-        UserModel currentUser = getCurrentUser();
-        if (user.getId().equals(currentUser.getId())) {
+        if (user.getId().equals(getCurrentPrincipal().id())) {
             throw new RuntimeException("Cannot delete your own account");
         }
         
         userRepository.deleteById(id);
+        tokenBlacklistService.blacklistAllUserAccessTokens(id);
     }
 
     public UserResponse mapToResponse(UserModel user) {
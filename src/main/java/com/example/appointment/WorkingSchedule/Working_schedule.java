@@ -19,7 +19,8 @@ import java.util.Set;
 public class Working_schedule {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "working_schedules_seq")
+    @SequenceGenerator(name = "working_schedules_seq", sequenceName = "working_schedules_id_seq", allocationSize = 50)
     Long id;
 
     @Column(nullable = false)
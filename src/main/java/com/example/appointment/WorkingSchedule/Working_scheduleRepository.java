@@ -31,4 +31,8 @@ public interface Working_scheduleRepository extends JpaRepository<Working_schedu
     // Query to find working schedules by service ID and day with employees fetched - to fix lazy loading issue
     @Query("SELECT DISTINCT ws FROM Working_schedule ws JOIN FETCH ws.employees e JOIN e.services serv WHERE serv.id = :serviceId AND ws.day = :day")
     List<Working_schedule> findByServiceIdAndDayWithEmployees(@Param("serviceId") Long serviceId, @Param("day") DayOfWeek day);
+
+    // Query to find all working schedules of a service with employees fetched, for multi-day lookups
+    @Query("SELECT DISTINCT ws FROM Working_schedule ws JOIN FETCH ws.employees e JOIN e.services serv WHERE serv.id = :serviceId")
+    List<Working_schedule> findByServiceIdWithEmployees(@Param("serviceId") Long serviceId);
 }
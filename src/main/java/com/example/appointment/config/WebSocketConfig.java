@@ -1,13 +1,18 @@
 package com.example.appointment.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -15,6 +20,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import com.example.appointment.Auth.JwtUtil;
 import com.example.appointment.Auth.TokenBlacklistService;
@@ -22,6 +28,7 @@ import com.example.appointment.User.UserService;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Autowired
@@ -33,13 +40,88 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private TokenBlacklistService tokenBlacklistService;
 
+    // simple: in-memory broker per node; redis: in-memory broker plus WebSocketPublisher fan-out;
+    // relay: an external STOMP broker (e.g. RabbitMQ) shared by every node
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode = "simple";
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost = "localhost";
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort = 61613;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin = "guest";
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode = "guest";
+
+    @Autowired
+    private WebSocketSessionMetrics sessionMetrics;
+
+    // Created by the broker configuration itself, hence lazy
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    // Server to client and expected client to server heartbeat; 0 disables either
+    @Value("${websocket.heartbeat.server-ms:10000}")
+    private long serverHeartbeatMillis = 10000;
+
+    @Value("${websocket.heartbeat.client-ms:10000}")
+    private long clientHeartbeatMillis = 10000;
+
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis = 10000;
+
+    @Value("${websocket.transport.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit = 256 * 1024;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit = 64 * 1024;
+
+    @Value("${websocket.transport.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMillis = 30000;
+
+    @Value("${websocket.inbound.pool-size:8}")
+    private int inboundPoolSize = 8;
+
+    @Value("${websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity = 10000;
+
+    @Value("${websocket.outbound.pool-size:8}")
+    private int outboundPoolSize = 8;
+
+    @Value("${websocket.outbound.queue-capacity:100000}")
+    private int outboundQueueCapacity = 100000;
 
 
 
         @Override
         public void configureMessageBroker(MessageBrokerRegistry config) {
 
-            config.enableSimpleBroker("/topic", "/queue");
+            if ("relay".equalsIgnoreCase(brokerMode)) {
+                config.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayLogin)
+                        .setClientPasscode(relayPasscode)
+                        .setSystemLogin(relayLogin)
+                        .setSystemPasscode(relayPasscode)
+                        // A /user destination whose sessions are on another node is resolved there
+                        .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                        .setUserRegistryBroadcast("/topic/simp-user-registry")
+                        // Client heartbeats are negotiated with the broker; these cover the relay's own connection
+                        .setSystemHeartbeatSendInterval(serverHeartbeatMillis)
+                        .setSystemHeartbeatReceiveInterval(clientHeartbeatMillis);
+                log.info("WebSocket broker relay to {}:{}", relayHost, relayPort);
+            } else {
+                config.enableSimpleBroker("/topic", "/queue")
+                        .setHeartbeatValue(new long[]{serverHeartbeatMillis, clientHeartbeatMillis})
+                        .setTaskScheduler(messageBrokerTaskScheduler);
+            }
 
             config.setApplicationDestinationPrefixes("/app");
 
@@ -52,5 +134,37 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             registry.addEndpoint("/ws")
                     .setAllowedOriginPatterns("*")
                     .withSockJS();
+
+            // Plain WebSocket for clients that do not need the SockJS fallbacks, without its framing overhead
+            registry.addEndpoint("/ws-native")
+                    .setAllowedOriginPatterns("*");
+        }
+
+        @Override
+        public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+            // A client that cannot take messages this fast is disconnected instead of holding an outbound thread
+            registration.setSendTimeLimit(sendTimeLimitMillis)
+                    .setSendBufferSizeLimit(sendBufferSizeLimit)
+                    .setMessageSizeLimit(messageSizeLimit)
+                    .setTimeToFirstMessage(timeToFirstMessageMillis)
+                    .addDecoratorFactory(sessionMetrics);
+        }
+
+        @Override
+        public void configureClientInboundChannel(ChannelRegistration registration) {
+            registration.taskExecutor()
+                    .corePoolSize(inboundPoolSize)
+                    .maxPoolSize(inboundPoolSize)
+                    .queueCapacity(inboundQueueCapacity);
+        }
+
+        @Override
+        public void configureClientOutboundChannel(ChannelRegistration registration) {
+            // A full queue drops the message, counted in websocket.session.messages.dropped
+            registration.taskExecutor()
+                    .corePoolSize(outboundPoolSize)
+                    .maxPoolSize(outboundPoolSize)
+                    .queueCapacity(outboundQueueCapacity);
+            registration.interceptors(sessionMetrics);
         }
     }
@@ -0,0 +1,182 @@
+package com.example.appointment.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends messages to WebSocket clients whichever node they are connected to.
+ *
+ * With websocket.broker.mode simple or relay this is a plain SimpMessagingTemplate send; the
+ * relay already shares subscriptions and user sessions between nodes. In redis mode every node
+ * keeps its in-memory broker, and each message is delivered locally and also published on a
+ * Redis channel, from which every other node delivers it to its own subscribers.
+ */
+@Component
+@Slf4j
+public class WebSocketPublisher implements MessageListener {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final boolean fanout;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    private final Counter failedCounter;
+    private final Timer fanoutTimer;
+
+    public WebSocketPublisher(SimpMessagingTemplate messagingTemplate,
+                              StringRedisTemplate redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              MeterRegistry meterRegistry,
+                              @Value("${websocket.broker.mode:simple}") String mode,
+                              @Value("${websocket.broker.redis.channel:appointment:ws-fanout}") String channel) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.fanout = "redis".equalsIgnoreCase(mode);
+        this.channel = channel;
+        this.publishedCounter = Counter.builder("websocket.fanout.published")
+                .description("WebSocket messages published to the other nodes")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("websocket.fanout.received")
+                .description("WebSocket messages from other nodes delivered to local sessions")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("websocket.fanout.failed")
+                .description("WebSocket messages that could not be published or read back")
+                .register(meterRegistry);
+        this.fanoutTimer = Timer.builder("websocket.fanout.latency")
+                .description("Time from publishing a message on one node to delivering it on another")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (fanout) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+            log.info("WebSocket fan-out over Redis channel {} as node {}", channel, nodeId);
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (fanout) {
+            listenerContainer.removeMessageListener(this);
+        }
+    }
+
+    /**
+     * Send to every session of the user, e.g. destination /queue/notifications.
+     */
+    public void sendToUser(String user, String destination, Object payload) {
+        if (!fanout) {
+            messagingTemplate.convertAndSendToUser(user, destination, payload);
+            return;
+        }
+        deliver(user, destination, payload);
+    }
+
+    /**
+     * Send to every subscriber of a broker destination, e.g. /topic/notifications.
+     */
+    public void send(String destination, Object payload) {
+        if (!fanout) {
+            messagingTemplate.convertAndSend(destination, payload);
+            return;
+        }
+        deliver(null, destination, payload);
+    }
+
+    // Converts once; the local send and every other node use the same bytes
+    private void deliver(String user, String destination, Object payload) {
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, mutableHeaders(null));
+        if (message == null || !(message.getPayload() instanceof byte[] body)) {
+            throw new IllegalArgumentException("Cannot convert " + payload.getClass().getSimpleName() + " for WebSocket delivery");
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        Envelope envelope = new Envelope(nodeId, user, destination,
+                contentType != null ? contentType.toString() : null, body, System.currentTimeMillis());
+
+        sendLocally(envelope, message);
+
+        try {
+            Message<?> json = messagingTemplate.getMessageConverter().toMessage(envelope, null);
+            redisTemplate.convertAndSend(channel, new String((byte[]) json.getPayload(), StandardCharsets.UTF_8));
+            publishedCounter.increment();
+        } catch (Exception e) {
+            // Local subscribers already have it; clients on other nodes catch up from the inbox
+            failedCounter.increment();
+            log.warn("Failed to publish WebSocket message for {} to other nodes: {}", envelope.destination(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message redisMessage, byte[] pattern) {
+        Envelope envelope;
+        try {
+            envelope = (Envelope) messagingTemplate.getMessageConverter()
+                    .fromMessage(MessageBuilder.withPayload(redisMessage.getBody()).build(), Envelope.class);
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.warn("Unreadable WebSocket fan-out message: {}", e.getMessage());
+            return;
+        }
+        if (envelope == null || nodeId.equals(envelope.node())) {
+            return;
+        }
+
+        MimeType contentType = envelope.contentType() != null ? MimeType.valueOf(envelope.contentType()) : null;
+        sendLocally(envelope, MessageBuilder.createMessage(envelope.body(), mutableHeaders(contentType)));
+        receivedCounter.increment();
+        fanoutTimer.record(Math.max(0, System.currentTimeMillis() - envelope.sentAt()), TimeUnit.MILLISECONDS);
+    }
+
+    private void sendLocally(Envelope envelope, Message<?> message) {
+        if (envelope.user() == null) {
+            messagingTemplate.send(envelope.destination(), message);
+        } else {
+            // Same destination convertAndSendToUser builds
+            String prefix = messagingTemplate.getUserDestinationPrefix();
+            messagingTemplate.send(prefix + envelope.user().replace("/", "%2F") + envelope.destination(), message);
+        }
+    }
+
+    // Left mutable so the template can still set the destination without copying the message
+    private static MessageHeaders mutableHeaders(MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (contentType != null) {
+            accessor.setContentType(contentType);
+        }
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    /**
+     * A message as published between nodes. user is null for broker destinations.
+     */
+    record Envelope(String node, String user, String destination, String contentType, byte[] body, long sentAt) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.appointment.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-session outbound queue depth for STOMP sessions.
+ *
+ * A message counts as queued from the moment it is sent to the client outbound channel until
+ * it is written to the socket, covering both the outbound executor queue and the session's
+ * send buffer. Messages still queued when a session closes, and messages the outbound channel
+ * rejects, are counted as dropped. Sessions closed for exceeding the send time or buffer
+ * limit are counted separately.
+ */
+@Component
+@Slf4j
+public class WebSocketSessionMetrics implements WebSocketHandlerDecoratorFactory, ChannelInterceptor {
+
+    private final Map<String, AtomicInteger> queued = new ConcurrentHashMap<>();
+    private final Counter droppedCounter;
+    private final Counter limitExceededCounter;
+
+    public WebSocketSessionMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("websocket.sessions", queued, Map::size)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("websocket.session.queue.depth.max", this, WebSocketSessionMetrics::maxQueueDepth)
+                .description("Most messages queued for one session")
+                .register(meterRegistry);
+        Gauge.builder("websocket.session.queue.depth.total", this, WebSocketSessionMetrics::totalQueueDepth)
+                .description("Messages queued over all sessions")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("websocket.session.messages.dropped")
+                .description("Messages for a session that were never written to it")
+                .register(meterRegistry);
+        this.limitExceededCounter = Counter.builder("websocket.session.limit.exceeded")
+                .description("Sessions closed for exceeding the send time or send buffer limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Messages queued for the session, 0 if it is not open.
+     */
+    public int queueDepth(String sessionId) {
+        AtomicInteger depth = queued.get(sessionId);
+        return depth != null ? depth.get() : 0;
+    }
+
+    // Scans every session, which is cheap next to a scrape interval even at tens of thousands
+    double maxQueueDepth() {
+        int max = 0;
+        for (AtomicInteger depth : queued.values()) {
+            max = Math.max(max, depth.get());
+        }
+        return max;
+    }
+
+    double totalQueueDepth() {
+        long total = 0;
+        for (AtomicInteger depth : queued.values()) {
+            total += depth.get();
+        }
+        return total;
+    }
+
+    // Client outbound channel: runs on the sending thread, before the message is queued
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        AtomicInteger depth = depthOf(message);
+        if (depth != null) {
+            depth.incrementAndGet();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (sent && ex == null) {
+            return;
+        }
+        // Typically the outbound executor queue is full
+        AtomicInteger depth = depthOf(message);
+        if (depth != null) {
+            decrement(depth);
+            droppedCounter.increment();
+        }
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                AtomicInteger depth = new AtomicInteger();
+                queued.put(session.getId(), depth);
+                // The STOMP handler buffers in front of this session, so it sees only actual writes
+                super.afterConnectionEstablished(new CountingSession(session, depth));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                AtomicInteger depth = queued.remove(session.getId());
+                if (depth != null && depth.get() > 0) {
+                    droppedCounter.increment(depth.get());
+                    log.debug("WebSocket session {} closed ({}) with {} messages unsent", session.getId(), closeStatus, depth.get());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private AtomicInteger depthOf(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId != null ? queued.get(sessionId) : null;
+    }
+
+    // Frames the STOMP handler writes without going through the outbound channel are not counted
+    private static void decrement(AtomicInteger depth) {
+        depth.updateAndGet(value -> value > 0 ? value - 1 : 0);
+    }
+
+    private class CountingSession extends WebSocketSessionDecorator {
+
+        private final AtomicInteger depth;
+
+        CountingSession(WebSocketSession session, AtomicInteger depth) {
+            super(session);
+            this.depth = depth;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                decrement(depth);
+            }
+        }
+
+        @Override
+        public void close(CloseStatus status) throws IOException {
+            // The status SubProtocolWebSocketHandler closes with when a send limit is exceeded
+            if (CloseStatus.SESSION_NOT_RELIABLE.equals(status)) {
+                limitExceededCounter.increment();
+                log.warn("Closing slow WebSocket session {} with {} messages queued", getId(), depth.get());
+            }
+            super.close(status);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+-- Prevent overlapping active appointments for the same employee
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Rows booked before the constraint may already overlap, which would abort ADD CONSTRAINT.
+-- The earliest booked appointment of each clash is kept and the later ones are cancelled, each
+-- reported as a warning. To review the clashes by hand before migrating instead, run:
+--
+--   SELECT a.id AS kept_id, b.id AS clashing_id, a.employee_id, b.start_time, b.end_time, b.status
+--   FROM appointments a
+--   JOIN appointments b ON b.employee_id = a.employee_id AND b.id > a.id
+--       AND tsrange(b.start_time, b.end_time) && tsrange(a.start_time, a.end_time)
+--   WHERE a.status <> 'CANCELLED' AND b.status <> 'CANCELLED'
+--   ORDER BY a.employee_id, b.start_time;
+DO $$
+DECLARE
+    clash RECORD;
+BEGIN
+    -- In id order, so a row is only cancelled for overlapping a row that is itself kept
+    FOR clash IN
+        SELECT b.id, b.employee_id, b.start_time, b.end_time, b.status
+        FROM appointments b
+        WHERE b.status <> 'CANCELLED'
+          AND EXISTS (SELECT 1 FROM appointments a
+                      WHERE a.employee_id = b.employee_id AND a.id < b.id AND a.status <> 'CANCELLED'
+                        AND tsrange(a.start_time, a.end_time) && tsrange(b.start_time, b.end_time))
+        ORDER BY b.id
+    LOOP
+        UPDATE appointments b SET status = 'CANCELLED'
+        WHERE b.id = clash.id
+          AND EXISTS (SELECT 1 FROM appointments a
+                      WHERE a.employee_id = b.employee_id AND a.id < b.id AND a.status <> 'CANCELLED'
+                        AND tsrange(a.start_time, a.end_time) && tsrange(b.start_time, b.end_time));
+        IF FOUND THEN
+            RAISE WARNING 'Cancelled appointment % (employee %, % to %, was %) overlapping an earlier booking',
+                clash.id, clash.employee_id, clash.start_time, clash.end_time, clash.status;
+        END IF;
+    END LOOP;
+END $$;
+
+ALTER TABLE appointments
+    ADD CONSTRAINT ex_appointments_employee_no_overlap
+    EXCLUDE USING gist (employee_id WITH =, tsrange(start_time, end_time) WITH &&)
+    WHERE (status <> 'CANCELLED');
@@ -0,0 +1,7 @@
+-- Hand out IDs in blocks of 50 so Hibernate can batch inserts (appointments moved in V13)
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE user_sessions_id_seq INCREMENT BY 50;
+ALTER SEQUENCE services_id_seq INCREMENT BY 50;
+ALTER SEQUENCE working_schedules_id_seq INCREMENT BY 50;
+ALTER SEQUENCE holidays_id_seq INCREMENT BY 50;
+ALTER SEQUENCE notifications_id_seq INCREMENT BY 50;
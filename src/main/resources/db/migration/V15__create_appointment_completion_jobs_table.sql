@@ -0,0 +1,13 @@
+-- Durable queue of appointment completions, polled by every instance
+CREATE TABLE appointment_completion_jobs (
+    appointment_id BIGINT PRIMARY KEY,
+    due_at TIMESTAMP NOT NULL,
+
+    CONSTRAINT fk_completion_jobs_appointment FOREIGN KEY (appointment_id) REFERENCES appointments(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_completion_jobs_due_at ON appointment_completion_jobs(due_at);
+
+-- Appointments scheduled before this table existed were only tracked in memory
+INSERT INTO appointment_completion_jobs (appointment_id, due_at)
+SELECT id, start_time FROM appointments WHERE status = 'SCHEDULED';
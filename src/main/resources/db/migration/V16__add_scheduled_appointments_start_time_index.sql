@@ -0,0 +1,2 @@
+-- Lets the completion sweep find due SCHEDULED appointments without scanning the rest
+CREATE INDEX idx_appointments_scheduled_start_time ON appointments(start_time) WHERE status = 'SCHEDULED';
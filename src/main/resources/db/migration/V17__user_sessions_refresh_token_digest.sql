@@ -0,0 +1,17 @@
+-- Look sessions up by a fixed-width SHA-256 of the refresh token instead of the whole JWT text
+ALTER TABLE user_sessions ADD COLUMN token_hash BYTEA;
+ALTER TABLE user_sessions ADD COLUMN jti VARCHAR(36);
+
+UPDATE user_sessions
+SET token_hash = sha256(convert_to(refresh_token, 'UTF8')),
+    jti = convert_from(decode(
+            translate(split_part(refresh_token, '.', 2), '-_', '+/')
+                || repeat('=', (4 - length(split_part(refresh_token, '.', 2)) % 4) % 4),
+            'base64'), 'UTF8')::json ->> 'jti';
+
+ALTER TABLE user_sessions ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE user_sessions ADD CONSTRAINT uk_user_sessions_token_hash UNIQUE (token_hash);
+
+-- Dropping the column also drops its UNIQUE constraint; the extra index on top goes explicitly
+DROP INDEX IF EXISTS idx_user_sessions_refresh_token;
+ALTER TABLE user_sessions DROP COLUMN refresh_token;
@@ -0,0 +1,66 @@
+-- Inbox pages are read newest first by (created_at, id) per user; the included columns let
+-- Postgres answer a page from the index alone
+CREATE INDEX idx_notifications_user_created_id ON notifications(user_id, created_at DESC, id DESC)
+    INCLUDE (data, readed_at, type);
+
+-- Its leading column already serves lookups by user_id
+DROP INDEX idx_notifications_user_id;
+
+-- Unread notifications per user, so the badge count is one primary key lookup
+CREATE TABLE user_notification_counts (
+    user_id BIGINT PRIMARY KEY,
+    unread_count INTEGER NOT NULL DEFAULT 0,
+
+    CONSTRAINT fk_user_notification_counts_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+INSERT INTO user_notification_counts (user_id, unread_count)
+SELECT user_id, count(*) FROM notifications WHERE readed_at IS NULL GROUP BY user_id;
+
+-- Kept in step by statement-level triggers, so bulk updates adjust each user's count once
+CREATE FUNCTION notifications_count_inserted() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO user_notification_counts (user_id, unread_count)
+    SELECT user_id, count(*) FROM new_rows WHERE readed_at IS NULL GROUP BY user_id
+    ON CONFLICT (user_id) DO UPDATE SET unread_count = user_notification_counts.unread_count + EXCLUDED.unread_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION notifications_count_updated() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO user_notification_counts (user_id, unread_count)
+    SELECT user_id, sum(delta) FROM (
+        SELECT user_id, 1 AS delta FROM new_rows WHERE readed_at IS NULL
+        UNION ALL
+        SELECT user_id, -1 AS delta FROM old_rows WHERE readed_at IS NULL
+    ) changes
+    GROUP BY user_id
+    HAVING sum(delta) <> 0
+    ON CONFLICT (user_id) DO UPDATE SET unread_count = user_notification_counts.unread_count + EXCLUDED.unread_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Only decrements existing rows: when a user is deleted their counter row is already gone
+CREATE FUNCTION notifications_count_deleted() RETURNS trigger AS $$
+BEGIN
+    UPDATE user_notification_counts c
+    SET unread_count = c.unread_count - d.unread
+    FROM (SELECT user_id, count(*) AS unread FROM old_rows WHERE readed_at IS NULL GROUP BY user_id) d
+    WHERE c.user_id = d.user_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_notifications_count_inserted AFTER INSERT ON notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notifications_count_inserted();
+
+CREATE TRIGGER trg_notifications_count_updated AFTER UPDATE ON notifications
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notifications_count_updated();
+
+CREATE TRIGGER trg_notifications_count_deleted AFTER DELETE ON notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notifications_count_deleted();
@@ -0,0 +1,3 @@
+-- Unread lookups only visit the rows still unread instead of every notification of the user,
+-- and the index stays small because marking a notification read removes it
+CREATE INDEX idx_notifications_user_unread ON notifications(user_id, created_at DESC, id DESC) WHERE readed_at IS NULL;
@@ -0,0 +1,65 @@
+-- Monthly range partitions on created_at, so retention drops whole months instead of deleting rows.
+-- Partitions for upcoming months are created ahead by NotificationPartitionMaintenance.
+
+ALTER TABLE notifications RENAME TO notifications_unpartitioned;
+ALTER TABLE notifications_unpartitioned RENAME CONSTRAINT notifications_pkey TO notifications_unpartitioned_pkey;
+DROP INDEX idx_notifications_user_created_id;
+DROP INDEX idx_notifications_user_unread;
+DROP INDEX idx_notifications_type;
+DROP INDEX idx_notifications_created_at;
+
+-- Keep the sequence (and its pooled increment) when the old table is dropped
+ALTER SEQUENCE notifications_id_seq OWNED BY NONE;
+
+-- The primary key has to include the partition key
+CREATE TABLE notifications (
+    id BIGINT NOT NULL DEFAULT nextval('notifications_id_seq'),
+    data varchar(256),
+    readed_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    user_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+
+    CONSTRAINT notifications_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_notifications_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notifications_id_seq OWNED BY notifications.id;
+
+-- One partition per month from the oldest notification to three months ahead
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', LEAST(COALESCE((SELECT min(created_at) FROM notifications_unpartitioned), LOCALTIMESTAMP), LOCALTIMESTAMP));
+    last_month TIMESTAMP := date_trunc('month', GREATEST(COALESCE((SELECT max(created_at) FROM notifications_unpartitioned), LOCALTIMESTAMP), LOCALTIMESTAMP)) + interval '3 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_' || to_char(month_start, 'YYYY_MM'), month_start, month_start + interval '1 month');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO notifications (id, data, readed_at, created_at, user_id, type)
+SELECT id, data, readed_at, created_at, user_id, type FROM notifications_unpartitioned;
+
+-- Also drops the unread count triggers of the old table; the counts themselves are unchanged
+DROP TABLE notifications_unpartitioned;
+
+-- Created on the parent, so every partition gets its own copy
+CREATE INDEX idx_notifications_user_created_id ON notifications(user_id, created_at DESC, id DESC)
+    INCLUDE (data, readed_at, type);
+CREATE INDEX idx_notifications_user_unread ON notifications(user_id, created_at DESC, id DESC) WHERE readed_at IS NULL;
+CREATE INDEX idx_notifications_type ON notifications(type);
+
+-- Statement-level triggers on the parent see the rows of every partition in their transition tables
+CREATE TRIGGER trg_notifications_count_inserted AFTER INSERT ON notifications
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notifications_count_inserted();
+
+CREATE TRIGGER trg_notifications_count_updated AFTER UPDATE ON notifications
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notifications_count_updated();
+
+CREATE TRIGGER trg_notifications_count_deleted AFTER DELETE ON notifications
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notifications_count_deleted();
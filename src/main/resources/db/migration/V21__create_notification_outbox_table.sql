@@ -0,0 +1,16 @@
+-- Notifications raised in a transaction, written in that same transaction and moved into
+-- notifications by NotificationOutbox, so a crash after the commit never loses them
+CREATE SEQUENCE notification_outbox_id_seq INCREMENT BY 50;
+
+CREATE TABLE notification_outbox (
+    id BIGINT PRIMARY KEY DEFAULT nextval('notification_outbox_id_seq'),
+    user_id BIGINT NOT NULL,
+    username VARCHAR(100),
+    type VARCHAR(50) NOT NULL,
+    data varchar(256),
+    created_at TIMESTAMP NOT NULL,
+
+    CONSTRAINT fk_notification_outbox_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+ALTER SEQUENCE notification_outbox_id_seq OWNED BY notification_outbox.id;
@@ -0,0 +1,144 @@
+package com.example.appointment.Appointment;
+
+import com.example.appointment.BenchmarkReport;
+import com.example.appointment.Holiday.HolidayRepository;
+import com.example.appointment.Services.Service;
+import com.example.appointment.Services.ServiceRepository;
+import com.example.appointment.User.UserModel;
+import com.example.appointment.WorkingSchedule.Working_schedule;
+import com.example.appointment.WorkingSchedule.Working_scheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.appointment.BenchmarkReport.percentile;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Latency of getAvailableSlots as the number of staff on one schedule grows.
+ * Run with: mvn test -Pbenchmark -Dtest=AvailableSlotsBenchmarkTest
+ */
+@Tag("benchmark")
+class AvailableSlotsBenchmarkTest {
+
+    private static final int[] STAFF_COUNTS = {1, 10, 50, 100, 250, 500};
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+    private static final LocalDate MONDAY = LocalDate.of(2025, 10, 13);
+    private static final int BOOKINGS_PER_EMPLOYEE = 4;
+
+    private AppointmentRepository appointmentRepository;
+    private ServiceRepository serviceRepository;
+    private Working_scheduleRepository workingScheduleRepository;
+    private EmployeeDayIntervalIndex intervalIndex;
+    private ForkJoinPool pool;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        serviceRepository = mock(ServiceRepository.class);
+        workingScheduleRepository = mock(Working_scheduleRepository.class);
+        intervalIndex = new EmployeeDayIntervalIndex();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        Service service = new Service();
+        service.setId(1L);
+        service.setName("Haircut");
+        service.setDuration(15);
+        when(serviceRepository.findById(1L)).thenReturn(Optional.of(service));
+
+        // Four 15-minute bookings per employee, spread over the morning
+        when(appointmentRepository.findBookedIntervalsByEmployeeIdsAndRange(any(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> employeeIds = invocation.getArgument(0);
+            List<BookedInterval> booked = new ArrayList<>();
+            long appointmentId = 1;
+            for (Long employeeId : employeeIds) {
+                for (int i = 0; i < BOOKINGS_PER_EMPLOYEE; i++) {
+                    LocalDateTime from = MONDAY.atTime(9 + i, 0);
+                    booked.add(new BookedInterval(appointmentId++, employeeId, from, from.plusMinutes(15)));
+                }
+            }
+            return booked;
+        });
+
+        appointmentService = new AppointmentService(appointmentRepository, serviceRepository, workingScheduleRepository,
+                mock(HolidayRepository.class), null, null, intervalIndex, pool, new ReservationLocks(16));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void availableSlotsLatencyByStaffCount() {
+        BenchmarkReport report = BenchmarkReport.table("%8d %12d %12d %12d %12d",
+                "staff", "cold p50 us", "cold p99 us", "warm p50 us", "warm p99 us");
+
+        for (int staffCount : STAFF_COUNTS) {
+            givenScheduleWithStaff(staffCount);
+
+            // 08:00-18:00 in 15-minute slots minus the booked ones
+            int expectedSlots = staffCount * (40 - BOOKINGS_PER_EMPLOYEE);
+            assertEquals(expectedSlots, appointmentService.getAvailableSlots(1L, MONDAY).size());
+
+            long[] cold = measure(true);
+            long[] warm = measure(false);
+            report.row(staffCount, percentile(cold, 50), percentile(cold, 99), percentile(warm, 50), percentile(warm, 99));
+        }
+    }
+
+    private void givenScheduleWithStaff(int staffCount) {
+        Set<UserModel> employees = new HashSet<>();
+        for (long id = 1; id <= staffCount; id++) {
+            UserModel employee = new UserModel();
+            employee.setId(id);
+            employees.add(employee);
+        }
+
+        Working_schedule schedule = new Working_schedule();
+        schedule.setId(1L);
+        schedule.setDay(DayOfWeek.MONDAY);
+        schedule.setStartTime(LocalTime.of(8, 0));
+        schedule.setEndTime(LocalTime.of(18, 0));
+        schedule.setEmployees(employees);
+
+        when(workingScheduleRepository.findByServiceIdAndDayWithEmployees(anyLong(), any()))
+                .thenReturn(List.of(schedule));
+        intervalIndex.invalidateAll();
+    }
+
+    // Cold runs drop the interval index before every call so each one pays for the load
+    private long[] measure(boolean cold) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            if (cold) {
+                intervalIndex.invalidateAll();
+            }
+            appointmentService.getAvailableSlots(1L, MONDAY);
+        }
+
+        long[] samples = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            if (cold) {
+                intervalIndex.invalidateAll();
+            }
+            long start = System.nanoTime();
+            appointmentService.getAvailableSlots(1L, MONDAY);
+            samples[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+}
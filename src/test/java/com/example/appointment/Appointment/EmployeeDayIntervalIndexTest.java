@@ -0,0 +1,70 @@
+package com.example.appointment.Appointment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeDayIntervalIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 10, 13);
+
+    private final EmployeeDayIntervalIndex index = new EmployeeDayIntervalIndex();
+
+    @Test
+    void cachesALoadedDay() {
+        AtomicInteger loads = new AtomicInteger();
+
+        index.lookup(List.of(1L), DATE, ids -> load(loads));
+        index.lookup(List.of(1L), DATE, ids -> load(loads));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void doesNotCacheALoadRacingWithAWriteToTheSameDay() {
+        EmployeeDayIntervalIndex.DayIntervals loaded = index.lookup(List.of(1L), DATE, ids -> {
+            // The booking this load may have missed
+            index.invalidate(1L, DATE);
+            return List.of(booked(1L));
+        }).get(1L);
+
+        // The caller still gets what was loaded, it is only not kept
+        assertEquals(1, loaded.size());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void keepsCachingWhileOtherDaysAreWritten() {
+        index.lookup(List.of(1L), DATE, ids -> {
+            index.invalidate(2L, DATE);
+            index.invalidate(1L, DATE.plusDays(1));
+            return List.of(booked(1L));
+        });
+
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void doesNotCacheALoadRacingWithInvalidateAll() {
+        index.lookup(List.of(1L, 2L), DATE, ids -> {
+            index.invalidateAll();
+            return List.of(booked(1L));
+        });
+
+        assertEquals(0, index.size());
+    }
+
+    private static List<BookedInterval> load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return List.of(booked(1L));
+    }
+
+    private static BookedInterval booked(Long employeeId) {
+        return new BookedInterval(10L, employeeId, DATE.atTime(9, 0), DATE.atTime(9, 30));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.appointment.Appointment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void expiresEntriesAtTheirDeadlineAndNeverEarly() {
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, START);
+        wheel.schedule(1L, START + 250);
+        wheel.schedule(2L, START + 5_000); // several rotations away
+
+        assertEquals(List.of(), wheel.advanceTo(START + 249));
+        assertEquals(List.of(1L), wheel.advanceTo(START + 300));
+        assertEquals(List.of(), wheel.advanceTo(START + 4_999));
+        assertEquals(List.of(2L), wheel.advanceTo(START + 5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelAndRescheduleReplaceTheEntry() {
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, START);
+        wheel.schedule(1L, START + 200);
+        wheel.schedule(2L, START + 200);
+        wheel.schedule(1L, START + 900);
+
+        assertTrue(wheel.cancel(2L));
+        assertFalse(wheel.cancel(2L));
+        assertEquals(List.of(), wheel.advanceTo(START + 500));
+        assertEquals(List.of(1L), wheel.advanceTo(START + 900));
+    }
+
+    @Test
+    void catchesUpAfterAPauseLongerThanOneRotation() {
+        HashedTimingWheel wheel = new HashedTimingWheel(100, 8, START);
+        for (long key = 0; key < 100; key++) {
+            wheel.schedule(key, START + key * 50);
+        }
+        wheel.schedule(1_000L, START + 60_000);
+
+        assertEquals(100, wheel.advanceTo(START + 10_000).size());
+        assertTrue(wheel.contains(1_000L));
+        assertEquals(List.of(1_000L), wheel.advanceTo(START + 60_000));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.appointment.Appointment;
+
+import com.example.appointment.Holiday.HolidayRepository;
+import com.example.appointment.Services.Service;
+import com.example.appointment.Services.ServiceRepository;
+import com.example.appointment.User.UserModel;
+import com.example.appointment.WorkingSchedule.Working_schedule;
+import com.example.appointment.WorkingSchedule.Working_scheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fires many parallel reservations at the same slot against an in-memory appointments
+ * store without any uniqueness guarantee, so only the striped locks prevent double booking.
+ */
+class ReservationConcurrencyTest {
+
+    private static final int RESERVATIONS = 1000;
+    private static final LocalDate MONDAY = LocalDate.of(2025, 10, 13);
+    private static final long EMPLOYEE_ID = 7L;
+
+    private final List<Appointment> stored = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private ForkJoinPool pool;
+    private ExecutorService clients;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        ServiceRepository serviceRepository = mock(ServiceRepository.class);
+        Working_scheduleRepository workingScheduleRepository = mock(Working_scheduleRepository.class);
+        pool = new ForkJoinPool(2);
+        clients = Executors.newFixedThreadPool(64);
+
+        Service service = new Service();
+        service.setId(1L);
+        service.setDuration(15);
+        when(serviceRepository.findById(1L)).thenReturn(Optional.of(service));
+
+        UserModel employee = new UserModel();
+        employee.setId(EMPLOYEE_ID);
+        Working_schedule schedule = new Working_schedule();
+        schedule.setDay(DayOfWeek.MONDAY);
+        schedule.setStartTime(LocalTime.of(8, 0));
+        schedule.setEndTime(LocalTime.of(18, 0));
+        schedule.setEmployees(new HashSet<>(Set.of(employee)));
+        when(workingScheduleRepository.findByServiceIdAndDayWithEmployees(anyLong(), any())).thenReturn(List.of(schedule));
+
+        when(appointmentRepository.findBookedIntervalsByEmployeeIdsAndRange(any(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> employeeIds = invocation.getArgument(0);
+            LocalDateTime rangeStart = invocation.getArgument(1);
+            LocalDateTime rangeEnd = invocation.getArgument(2);
+            return stored.stream()
+                    .filter(a -> employeeIds.contains(a.getEmployee().getId()))
+                    .filter(a -> !a.getFrom().isBefore(rangeStart) && a.getFrom().isBefore(rangeEnd))
+                    .map(a -> new BookedInterval(a.getId(), a.getEmployee().getId(), a.getFrom(), a.getTo()))
+                    .toList();
+        });
+
+        // Widen the window between the overlap check and the insert
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            Thread.yield();
+            appointment.setId(ids.incrementAndGet());
+            stored.add(appointment);
+            return appointment;
+        });
+
+        appointmentService = new AppointmentService(appointmentRepository, serviceRepository, workingScheduleRepository,
+                mock(HolidayRepository.class), null, null, new EmployeeDayIntervalIndex(), pool, new ReservationLocks(64));
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+        pool.shutdown();
+    }
+
+    @Test
+    void onlyOneOfManyParallelReservationsForTheSameSlotSucceeds() throws Exception {
+        LocalDateTime slot = MONDAY.atTime(10, 0);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<AppointmentReservationResponse>> results = new ArrayList<>();
+        for (long customerId = 1; customerId <= RESERVATIONS; customerId++) {
+            long customer = customerId;
+            results.add(clients.submit(() -> {
+                start.await();
+                return appointmentService.reserveAppointment(1L, customer, slot);
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<AppointmentReservationResponse> result : results) {
+            if (result.get(30, TimeUnit.SECONDS).isSuccess()) {
+                succeeded++;
+            }
+        }
+
+        assertEquals(1, succeeded);
+        assertEquals(1, stored.size());
+        assertEquals(EMPLOYEE_ID, stored.get(0).getEmployee().getId());
+    }
+}
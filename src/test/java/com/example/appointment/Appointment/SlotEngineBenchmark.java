@@ -0,0 +1,163 @@
+package com.example.appointment.Appointment;
+
+import com.example.appointment.User.UserModel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the minute-based {@link SlotEngine} with the LocalTime-based slot
+ * generator it replaced, for one 08:00-18:00 schedule with 15-minute services.
+ * Run with: mvn test -Pbenchmark -Dtest=SlotEngineBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class SlotEngineBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 10, 13);
+    private static final LocalTime SCHEDULE_START = LocalTime.of(8, 0);
+    private static final LocalTime SCHEDULE_END = LocalTime.of(18, 0);
+    private static final int DURATION = 15;
+    private static final int BOOKINGS_PER_EMPLOYEE = 4;
+
+    @Param({"10", "200"})
+    public int staffCount;
+
+    private List<SlotEngine.Window> windows;
+    private Map<Long, EmployeeDayIntervalIndex.DayIntervals> bookedIntervals;
+    private Map<Long, List<Appointment>> bookedAppointments;
+
+    @Setup
+    public void setUp() {
+        windows = new ArrayList<>();
+        bookedIntervals = new HashMap<>();
+        bookedAppointments = new HashMap<>();
+
+        long appointmentId = 1;
+        for (long employeeId = 1; employeeId <= staffCount; employeeId++) {
+            windows.add(new SlotEngine.Window(employeeId, SCHEDULE_START.toSecondOfDay() / 60, SCHEDULE_END.toSecondOfDay() / 60));
+
+            List<BookedInterval> intervals = new ArrayList<>();
+            List<Appointment> appointments = new ArrayList<>();
+            // Inserted latest first so the legacy generator has to sort
+            for (int i = BOOKINGS_PER_EMPLOYEE - 1; i >= 0; i--) {
+                LocalDateTime from = DATE.atTime(9 + i * 2, 0);
+                LocalDateTime to = from.plusMinutes(DURATION);
+                intervals.add(new BookedInterval(appointmentId, employeeId, from, to));
+
+                Appointment appointment = new Appointment();
+                appointment.setId(appointmentId++);
+                appointment.setFrom(from);
+                appointment.setTo(to);
+                appointments.add(appointment);
+            }
+            bookedIntervals.put(employeeId, EmployeeDayIntervalIndex.DayIntervals.of(DATE, intervals, 0));
+            bookedAppointments.put(employeeId, appointments);
+        }
+    }
+
+    @Benchmark
+    public void legacyGenerator(Blackhole blackhole) {
+        List<AvailableSlotDTO> merged = new ArrayList<>();
+        for (SlotEngine.Window window : windows) {
+            List<Appointment> booked = new ArrayList<>(bookedAppointments.get(window.employeeId()));
+            merged.addAll(legacyCalculateAvailableSlots(DATE, SCHEDULE_START, SCHEDULE_END, booked, DURATION, window.employeeId()));
+        }
+        merged.sort(Comparator.comparing(AvailableSlotDTO::getStartTime).thenComparing(AvailableSlotDTO::getEmployeeId));
+        blackhole.consume(merged);
+    }
+
+    @Benchmark
+    public void slotEngine(Blackhole blackhole) {
+        blackhole.consume(computeWithEngine());
+    }
+
+    @Benchmark
+    public void slotEngineWithDTOs(Blackhole blackhole) {
+        blackhole.consume(computeWithEngine().toDTOs());
+    }
+
+    private SlotEngine.DaySlots computeWithEngine() {
+        List<int[]> startsPerWindow = new ArrayList<>(windows.size());
+        for (SlotEngine.Window window : windows) {
+            startsPerWindow.add(SlotEngine.freeStarts(window, bookedIntervals.get(window.employeeId()), DURATION));
+        }
+        return SlotEngine.merge(DATE, windows, startsPerWindow, DURATION);
+    }
+
+    // Slot generator as it was before the minute-based engine, kept for comparison
+    private static List<AvailableSlotDTO> legacyCalculateAvailableSlots(LocalDate date, LocalTime scheduleStart, LocalTime scheduleEnd,
+                                                                        List<Appointment> bookedAppointments, int serviceDuration, Long employeeId) {
+        List<AvailableSlotDTO> availableSlots = new ArrayList<>();
+        bookedAppointments.sort((a, b) -> a.getFrom().compareTo(b.getFrom()));
+
+        LocalTime currentTime = scheduleStart;
+        for (Appointment appointment : bookedAppointments) {
+            LocalTime appointmentStart = appointment.getFrom().toLocalTime();
+            LocalTime appointmentEnd = appointment.getTo().toLocalTime();
+
+            if (currentTime.isBefore(appointmentStart)) {
+                while (!currentTime.isAfter(appointmentStart.minusMinutes(serviceDuration)) &&
+                       currentTime.plusMinutes(serviceDuration).compareTo(appointmentStart) <= 0) {
+                    LocalDateTime slotStart = LocalDateTime.of(date, currentTime);
+                    LocalDateTime slotEnd = slotStart.plusMinutes(serviceDuration);
+
+                    if (slotEnd.compareTo(LocalDateTime.of(date, appointmentStart)) <= 0) {
+                        UserModel employee = new UserModel();
+                        employee.setId(employeeId);
+                        String employeeName = "Employee " + employeeId;
+
+                        availableSlots.add(new AvailableSlotDTO(slotStart, slotEnd, employeeId, employeeName));
+                        currentTime = currentTime.plusMinutes(serviceDuration);
+                    } else {
+                        break;
+                    }
+                }
+            }
+            currentTime = appointmentEnd;
+        }
+
+        while (!currentTime.isAfter(scheduleEnd.minusMinutes(serviceDuration)) &&
+               currentTime.plusMinutes(serviceDuration).compareTo(scheduleEnd) <= 0) {
+            LocalDateTime slotStart = LocalDateTime.of(date, currentTime);
+            LocalDateTime slotEnd = slotStart.plusMinutes(serviceDuration);
+
+            if (slotEnd.compareTo(LocalDateTime.of(date, scheduleEnd)) <= 0) {
+                UserModel employee = new UserModel();
+                employee.setId(employeeId);
+                String employeeName = "Employee " + employeeId;
+
+                availableSlots.add(new AvailableSlotDTO(slotStart, slotEnd, employeeId, employeeName));
+                currentTime = currentTime.plusMinutes(serviceDuration);
+            } else {
+                break;
+            }
+        }
+        return availableSlots;
+    }
+
+    @Test
+    void runBenchmarks() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SlotEngineBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.appointment.Appointment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotEngineTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 10, 13);
+
+    @Test
+    void skipsOverlappingBookingsAndFillsUpToAdjacentOnes() {
+        SlotEngine.Window window = new SlotEngine.Window(1L, minute(8, 0), minute(12, 0));
+        EmployeeDayIntervalIndex.DayIntervals booked = intervals(1L,
+                DATE.atTime(9, 30), DATE.atTime(10, 15),
+                DATE.atTime(9, 0), DATE.atTime(9, 45),
+                DATE.atTime(10, 15), DATE.atTime(10, 45));
+
+        assertArrayEquals(new int[]{minute(8, 0), minute(8, 30), minute(10, 45), minute(11, 15)},
+                SlotEngine.freeStarts(window, booked, 30));
+    }
+
+    @Test
+    void bookingsCrossingTheWorkingHoursOnlyBlockTheirPartInside() {
+        SlotEngine.Window window = new SlotEngine.Window(1L, minute(9, 0), minute(17, 0));
+        EmployeeDayIntervalIndex.DayIntervals booked = intervals(1L,
+                DATE.minusDays(1).atTime(22, 0), DATE.atTime(8, 50),
+                DATE.atTime(8, 30), DATE.atTime(9, 20),
+                DATE.atTime(16, 40), DATE.plusDays(1).atTime(1, 0));
+
+        int[] expected = IntStream.iterate(minute(9, 20), start -> start <= minute(16, 20), start -> start + 20).toArray();
+        assertArrayEquals(expected, SlotEngine.freeStarts(window, booked, 20));
+    }
+
+    @Test
+    void emptyDayHasEveryFullSlotOfTheWindow() {
+        SlotEngine.Window window = new SlotEngine.Window(1L, minute(8, 0), minute(10, 15));
+
+        assertArrayEquals(new int[]{minute(8, 0), minute(8, 45), minute(9, 30)},
+                SlotEngine.freeStarts(window, intervals(1L), 45));
+        assertArrayEquals(new int[]{minute(8, 0), minute(8, 45), minute(9, 30)},
+                SlotEngine.freeStarts(window, null, 45));
+        assertArrayEquals(new int[0], SlotEngine.freeStarts(window, null, 180));
+
+        SlotEngine.DaySlots empty = SlotEngine.DaySlots.empty(DATE);
+        assertEquals(0, empty.size());
+        assertEquals(List.of(), empty.toDTOs());
+        assertNull(empty.employeeAt(minute(8, 0)));
+    }
+
+    @Test
+    void matchesTheGeneratorItReplacedForAFixedSchedule() {
+        // Employee 3 has two overlapping windows, employee 1 a split shift
+        List<SlotEngine.Window> windows = new ArrayList<>(List.of(
+                new SlotEngine.Window(1L, minute(8, 0), minute(12, 0)),
+                new SlotEngine.Window(1L, minute(13, 0), minute(18, 0)),
+                new SlotEngine.Window(2L, minute(9, 0), minute(17, 0)),
+                new SlotEngine.Window(3L, minute(8, 0), minute(12, 0)),
+                new SlotEngine.Window(3L, minute(10, 0), minute(14, 0))));
+        windows.sort(Comparator.comparingLong(SlotEngine.Window::employeeId).thenComparingInt(SlotEngine.Window::startMinute));
+
+        Map<Long, EmployeeDayIntervalIndex.DayIntervals> booked = new HashMap<>();
+        booked.put(1L, intervals(1L,
+                DATE.atTime(8, 0), DATE.atTime(8, 25),
+                DATE.atTime(11, 40), DATE.atTime(13, 10),
+                DATE.atTime(15, 0), DATE.atTime(15, 25),
+                DATE.atTime(15, 25), DATE.atTime(16, 0)));
+        booked.put(2L, intervals(2L));
+        booked.put(3L, intervals(3L,
+                DATE.atTime(9, 10), DATE.atTime(10, 5),
+                DATE.atTime(9, 50), DATE.atTime(11, 0),
+                DATE.atTime(13, 55), DATE.plusDays(1).atTime(0, 30)));
+
+        for (int duration : new int[]{15, 25, 40}) {
+            List<int[]> startsPerWindow = new ArrayList<>();
+            for (SlotEngine.Window window : windows) {
+                startsPerWindow.add(SlotEngine.freeStarts(window, booked.get(window.employeeId()), duration));
+            }
+            SlotEngine.DaySlots slots = SlotEngine.merge(DATE, windows, startsPerWindow, duration);
+
+            List<AvailableSlotDTO> baseline = baselineSlots(windows, booked, duration);
+            assertEquals(baseline, slots.toDTOs(), "duration " + duration);
+            for (AvailableSlotDTO slot : baseline) {
+                int start = slot.getStartTime().getHour() * 60 + slot.getStartTime().getMinute();
+                assertTrue(slots.employeesAt(start).contains(slot.getEmployeeId()));
+            }
+        }
+    }
+
+    private static int minute(int hour, int minute) {
+        return hour * 60 + minute;
+    }
+
+    // Pairs of from, to
+    private static EmployeeDayIntervalIndex.DayIntervals intervals(long employeeId, LocalDateTime... bounds) {
+        List<BookedInterval> booked = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            booked.add(new BookedInterval((long) i, employeeId, bounds[i], bounds[i + 1]));
+        }
+        return EmployeeDayIntervalIndex.DayIntervals.of(DATE, booked, 0);
+    }
+
+    // Per-window generator and merge AppointmentService used before SlotEngine
+    private static List<AvailableSlotDTO> baselineSlots(List<SlotEngine.Window> windows,
+                                                        Map<Long, EmployeeDayIntervalIndex.DayIntervals> booked, int duration) {
+        Comparator<AvailableSlotDTO> order = Comparator.comparing(AvailableSlotDTO::getStartTime)
+                .thenComparing(AvailableSlotDTO::getEmployeeId);
+        List<AvailableSlotDTO> merged = new ArrayList<>();
+        for (SlotEngine.Window window : windows) {
+            merged.addAll(baselineWindow(window, booked.get(window.employeeId()), duration));
+        }
+        merged.sort(order);
+
+        List<AvailableSlotDTO> distinct = new ArrayList<>(merged.size());
+        AvailableSlotDTO previous = null;
+        for (AvailableSlotDTO slot : merged) {
+            if (previous == null || order.compare(previous, slot) != 0) {
+                distinct.add(slot);
+            }
+            previous = slot;
+        }
+        return distinct;
+    }
+
+    private static List<AvailableSlotDTO> baselineWindow(SlotEngine.Window window,
+                                                         EmployeeDayIntervalIndex.DayIntervals booked, int duration) {
+        List<AvailableSlotDTO> slots = new ArrayList<>();
+        int current = window.startMinute();
+        for (int i = 0; i < booked.size(); i++) {
+            if (booked.endAt(i) <= current) {
+                continue;
+            }
+            if (booked.startAt(i) >= window.endMinute()) {
+                break;
+            }
+            while (current + duration <= booked.startAt(i)) {
+                slots.add(baselineSlot(window.employeeId(), current, duration));
+                current += duration;
+            }
+            current = Math.max(current, booked.endAt(i));
+        }
+        while (current + duration <= window.endMinute()) {
+            slots.add(baselineSlot(window.employeeId(), current, duration));
+            current += duration;
+        }
+        return slots;
+    }
+
+    private static AvailableSlotDTO baselineSlot(long employeeId, int startMinute, int duration) {
+        LocalDateTime start = DATE.atStartOfDay().plusMinutes(startMinute);
+        return new AvailableSlotDTO(start, start.plusMinutes(duration), employeeId, "Employee " + employeeId);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.appointment.Appointment;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Memory footprint and schedule/cancel throughput of 1M appointment deadlines spread over
+ * 90 days, in the timing wheel and in a ScheduledThreadPoolExecutor with a map of futures
+ * (the previous AppointmentSchedulerService). Best run with a fixed heap, e.g. -Xmx2g.
+ * Run with: mvn test -Pbenchmark -Dtest=TimingWheelBenchmarkTest
+ */
+@Tag("benchmark")
+class TimingWheelBenchmarkTest {
+
+    private static final int APPOINTMENTS = 1_000_000;
+    private static final long HORIZON_MILLIS = TimeUnit.DAYS.toMillis(90);
+
+    @Test
+    void timingWheelAgainstScheduledExecutor() {
+        long[] delays = new long[APPOINTMENTS];
+        Random random = new Random(42);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            delays[i] = TimeUnit.MINUTES.toMillis(1) + (long) (random.nextDouble() * HORIZON_MILLIS);
+        }
+
+        System.out.printf("%-10s %12s %16s %16s %16s%n", "scheduler", "heap MB", "schedule ops/s", "cancel ops/s", "left after cancel");
+        runExecutor(delays);
+        runWheel(delays);
+    }
+
+    private void runExecutor(long[] delays) {
+        long baseline = usedHeap();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(10);
+        ConcurrentHashMap<Long, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            long appointmentId = i;
+            scheduledTasks.put(appointmentId, executor.schedule(() -> consume(appointmentId), delays[i], TimeUnit.MILLISECONDS));
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        long heap = usedHeap() - baseline;
+
+        start = System.nanoTime();
+        for (long appointmentId = 0; appointmentId < APPOINTMENTS; appointmentId++) {
+            ScheduledFuture<?> task = scheduledTasks.remove(appointmentId);
+            task.cancel(false);
+        }
+        long cancelNanos = System.nanoTime() - start;
+
+        // Without remove-on-cancel the cancelled tasks stay queued until their delay elapses
+        int leftover = executor.getQueue().size();
+        print("executor", heap, scheduleNanos, cancelNanos, leftover);
+        executor.shutdownNow();
+    }
+
+    private void runWheel(long[] delays) {
+        long baseline = usedHeap();
+        long now = System.currentTimeMillis();
+        HashedTimingWheel wheel = new HashedTimingWheel(200, 512, now);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            wheel.schedule(i, now + delays[i]);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        long heap = usedHeap() - baseline;
+        assertEquals(APPOINTMENTS, wheel.size());
+
+        start = System.nanoTime();
+        for (long appointmentId = 0; appointmentId < APPOINTMENTS; appointmentId++) {
+            wheel.cancel(appointmentId);
+        }
+        long cancelNanos = System.nanoTime() - start;
+
+        assertEquals(0, wheel.size());
+        print("wheel", heap, scheduleNanos, cancelNanos, wheel.size());
+    }
+
+    private static void print(String name, long heapBytes, long scheduleNanos, long cancelNanos, int leftover) {
+        System.out.printf("%-10s %12d %16.0f %16.0f %16d%n", name, heapBytes / (1024 * 1024),
+                APPOINTMENTS / (scheduleNanos / 1e9), APPOINTMENTS / (cancelNanos / 1e9), leftover);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void consume(long appointmentId) {
+        if (appointmentId < 0) {
+            throw new IllegalStateException();
+        }
+    }
+}
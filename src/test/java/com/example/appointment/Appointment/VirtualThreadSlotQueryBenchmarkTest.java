@@ -0,0 +1,186 @@
+package com.example.appointment.Appointment;
+
+import com.example.appointment.BenchmarkReport;
+import com.example.appointment.Holiday.HolidayRepository;
+import com.example.appointment.Services.Service;
+import com.example.appointment.Services.ServiceRepository;
+import com.example.appointment.User.UserModel;
+import com.example.appointment.WorkingSchedule.Working_schedule;
+import com.example.appointment.WorkingSchedule.Working_scheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.example.appointment.BenchmarkReport.percentile;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 5,000 concurrent getAvailableSlots calls on Tomcat's default 200 platform threads versus
+ * one virtual thread each, with every repository call holding one of a fixed number of
+ * connections for a simulated round trip. Shows that virtual threads only help once the
+ * connection pool is sized for the extra concurrency.
+ *
+ * The virtual thread runs are skipped below Java 21.
+ * Run with: mvn test -Pbenchmark -Pvirtual-threads -Dtest=VirtualThreadSlotQueryBenchmarkTest
+ */
+@Tag("benchmark")
+class VirtualThreadSlotQueryBenchmarkTest {
+
+    private static final int CONCURRENT_QUERIES = 5_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int[] CONNECTION_POOL_SIZES = {10, 50, 200};
+    private static final long QUERY_MILLIS = 5;
+    private static final long CONNECTION_TIMEOUT_MILLIS = 30_000;
+    private static final int STAFF_COUNT = 10;
+    private static final LocalDate MONDAY = LocalDate.of(2025, 10, 13);
+
+    private AppointmentRepository appointmentRepository;
+    private ServiceRepository serviceRepository;
+    private Working_scheduleRepository workingScheduleRepository;
+    private ForkJoinPool pool;
+    private AppointmentService appointmentService;
+    private Semaphore connections;
+
+    @BeforeEach
+    void setUp() {
+        // Stub-only mocks do not record invocations, so 5,000 threads do not contend on them
+        appointmentRepository = mock(AppointmentRepository.class, withSettings().stubOnly());
+        serviceRepository = mock(ServiceRepository.class, withSettings().stubOnly());
+        workingScheduleRepository = mock(Working_scheduleRepository.class, withSettings().stubOnly());
+        HolidayRepository holidayRepository = mock(HolidayRepository.class, withSettings().stubOnly());
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        Service service = new Service();
+        service.setId(1L);
+        service.setName("Haircut");
+        service.setDuration(15);
+        when(serviceRepository.findById(1L)).thenAnswer(invocation -> query(() -> Optional.of(service)));
+
+        Working_schedule schedule = givenScheduleWithStaff();
+        when(workingScheduleRepository.findByServiceIdAndDayWithEmployees(anyLong(), any()))
+                .thenAnswer(invocation -> query(() -> List.of(schedule)));
+        when(holidayRepository.findByHolidayDate(any())).thenReturn(List.of());
+        when(appointmentRepository.findBookedIntervalsByEmployeeIdsAndRange(any(), any(), any()))
+                .thenAnswer(invocation -> query(List::<BookedInterval>of));
+
+        appointmentService = new AppointmentService(appointmentRepository, serviceRepository, workingScheduleRepository,
+                holidayRepository, null, null, new EmployeeDayIntervalIndex(), pool, new ReservationLocks(16));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void slotQueriesPlatformVersusVirtualThreads() throws Exception {
+        boolean virtualThreadsAvailable = Runtime.version().feature() >= 21;
+        if (!virtualThreadsAvailable) {
+            System.out.println("Java " + Runtime.version().feature() + " has no virtual threads, only platform runs are measured");
+        }
+
+        BenchmarkReport report = BenchmarkReport.table("%-14s %6d %10.0f %10.1f %10.1f %10.1f %8d",
+                "threads", "pool", "req/s", "p50 ms", "p99 ms", "max ms", "timeouts");
+        for (int poolSize : CONNECTION_POOL_SIZES) {
+            run(report, "platform-" + TOMCAT_MAX_THREADS, poolSize, () -> Executors.newFixedThreadPool(TOMCAT_MAX_THREADS));
+            if (virtualThreadsAvailable) {
+                run(report, "virtual", poolSize, VirtualThreadSlotQueryBenchmarkTest::newVirtualThreadExecutor);
+            }
+        }
+    }
+
+    private void run(BenchmarkReport report, String threads, int poolSize, Supplier<ExecutorService> executorFactory) throws Exception {
+        connections = new Semaphore(poolSize, true);
+        AtomicInteger timeouts = new AtomicInteger();
+        long[] latencies = new long[CONCURRENT_QUERIES];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(CONCURRENT_QUERIES);
+
+        ExecutorService executor = executorFactory.get();
+        try {
+            for (int i = 0; i < CONCURRENT_QUERIES; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // Latency starts at release so time queued for a platform thread counts too
+                    long begin = System.nanoTime();
+                    try {
+                        assertFalse(appointmentService.getAvailableSlots(1L, MONDAY).isEmpty());
+                    } catch (ConnectionTimeoutException e) {
+                        timeouts.incrementAndGet();
+                    }
+                    latencies[index] = System.nanoTime() - begin;
+                    return null;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+
+            Arrays.sort(latencies);
+            report.row(threads, poolSize, CONCURRENT_QUERIES / (elapsed / 1e9),
+                    percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                    latencies[latencies.length - 1] / 1e6, timeouts.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Holds a connection for one simulated round trip, giving up like Hikari's connection-timeout
+    private <T> T query(Supplier<T> result) throws InterruptedException {
+        if (!connections.tryAcquire(CONNECTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            throw new ConnectionTimeoutException();
+        }
+        try {
+            Thread.sleep(QUERY_MILLIS);
+            return result.get();
+        } finally {
+            connections.release();
+        }
+    }
+
+    private static Working_schedule givenScheduleWithStaff() {
+        Set<UserModel> employees = new HashSet<>();
+        for (long id = 1; id <= STAFF_COUNT; id++) {
+            UserModel employee = new UserModel();
+            employee.setId(id);
+            employees.add(employee);
+        }
+
+        Working_schedule schedule = new Working_schedule();
+        schedule.setId(1L);
+        schedule.setDay(DayOfWeek.MONDAY);
+        schedule.setStartTime(LocalTime.of(8, 0));
+        schedule.setEndTime(LocalTime.of(18, 0));
+        schedule.setEmployees(employees);
+        return schedule;
+    }
+
+    // Looked up reflectively so the test still compiles for Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need Java 21", e);
+        }
+    }
+
+    private static final class ConnectionTimeoutException extends RuntimeException {
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.appointment.Auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenBlacklistFilterTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private AccessTokenBlacklistFilter filter;
+    private TokenBlacklistService tokenBlacklistService;
+    private final Instant expiresAt = Instant.now().plusSeconds(600);
+
+    @BeforeEach
+    void setUp() {
+        filter = new AccessTokenBlacklistFilter(redisTemplate, listenerContainer, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "layout", "buckets");
+        tokenBlacklistService = new TokenBlacklistService(redisTemplate, filter);
+    }
+
+    @Test
+    void asksRedisForEveryJtiBeforeTheFirstRebuild() {
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.hasKey("blacklist:access:revoked")).thenReturn(true);
+        when(redisTemplate.hasKey("blacklist:access:unknown")).thenReturn(false);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightBeBlacklisted("unknown"));
+        assertTrue(tokenBlacklistService.isAccessTokenBlacklisted("revoked", expiresAt));
+        assertFalse(tokenBlacklistService.isAccessTokenBlacklisted("unknown", expiresAt));
+        verify(redisTemplate).hasKey("blacklist:access:unknown");
+    }
+
+    @Test
+    void answersUnknownJtisWithoutRedisOnceRebuilt() {
+        long revokedAt = System.currentTimeMillis();
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(Set.of("revoked"), Set.of()), List.of(Map.of("7", Long.toString(revokedAt))));
+
+        filter.rebuild();
+
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightBeBlacklisted("revoked"));
+        assertFalse(tokenBlacklistService.isAccessTokenBlacklisted("unknown", expiresAt));
+        verify(redisTemplate, never()).hasKey(anyString());
+        assertEquals(revokedAt, filter.revokedBefore(7L));
+    }
+
+    @Test
+    void staysOnRedisWhenTheRebuildFails() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        filter.rebuild();
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightBeBlacklisted("unknown"));
+    }
+
+    @Test
+    void keepsAJtiPublishedWhileTheFiltersAreSwapped() throws Exception {
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenReturn(List.of());
+        filter.rebuild();
+
+        // The next rebuild has read Redis, before "late" was blacklisted, and waits before swapping
+        CountDownLatch readRedis = new CountDownLatch(1);
+        CountDownLatch swap = new CountDownLatch(1);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of())
+                .thenAnswer(invocation -> {
+                    readRedis.countDown();
+                    swap.await();
+                    return List.of();
+                });
+        Thread rebuild = new Thread(filter::rebuild);
+        rebuild.start();
+        readRedis.await();
+
+        // The swap completes while "late" is being added to the current filter
+        BloomFilter current = spy((BloomFilter) ReflectionTestUtils.getField(filter, "filter"));
+        doAnswer(invocation -> {
+            swap.countDown();
+            rebuild.join();
+            return invocation.callRealMethod();
+        }).when(current).put("late");
+        ReflectionTestUtils.setField(filter, "filter", current);
+
+        filter.publish("late");
+
+        assertNotSame(current, ReflectionTestUtils.getField(filter, "filter"));
+        assertTrue(filter.mightBeBlacklisted("late"));
+    }
+
+    @Test
+    void neverBuildsTheFilterInTheKeysLayout() {
+        ReflectionTestUtils.setField(filter, "layout", "keys");
+
+        filter.rebuild();
+
+        assertFalse(filter.isReady());
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.appointment.Auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis commands issued by one maintenance cycle over 10k blacklisted JTIs, held both as
+ * per-JTI keys and in bucket hashes. "scan cleanup" replays the SCAN + PTTL pass the removed
+ * BlacklistCleanupScheduler ran every 10 minutes and "stats" is one run of
+ * {@link BlacklistStatsCollector}; "scan rebuild" replays the SCAN-based filter rebuild and
+ * "rebuild" is one run of {@link AccessTokenBlacklistFilter#rebuild()}. Counts come from INFO
+ * commandstats, so run it against an otherwise idle Redis.
+ * Run with: mvn test -Pbenchmark -Dtest=BlacklistMaintenanceCommandCountTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "jwt.blacklist.layout=buckets")
+class BlacklistMaintenanceCommandCountTest {
+
+    private static final int ENTRIES = 10_000;
+    private static final String JTI_PREFIX = "maintenance-benchmark-";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private BlacklistStatsCollector blacklistStatsCollector;
+
+    @Autowired
+    private AccessTokenBlacklistFilter blacklistFilter;
+
+    @Value("${jwt.blacklist.bucket-ms:300000}")
+    private long bucketMillis;
+
+    private final Set<String> bucketKeys = new HashSet<>();
+
+    @AfterEach
+    void cleanUp() {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < ENTRIES; i++) {
+                connection.keyCommands().del((TokenBlacklistService.ACCESS_BLACKLIST_PREFIX + JTI_PREFIX + i).getBytes(StandardCharsets.UTF_8));
+            }
+            for (String key : bucketKeys) {
+                connection.keyCommands().del(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void maintenanceCommandCounts() {
+        byte[] value = "1".getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < ENTRIES; i++) {
+                connection.stringCommands().pSetEx(
+                        (TokenBlacklistService.ACCESS_BLACKLIST_PREFIX + JTI_PREFIX + i).getBytes(StandardCharsets.UTF_8),
+                        TimeUnit.MINUTES.toMillis(30), value);
+            }
+            return null;
+        });
+        // The same JTIs in the bucket layout, expiring over the next 30 minutes
+        long now = System.currentTimeMillis();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < ENTRIES; i++) {
+                long bucket = (now + TimeUnit.SECONDS.toMillis(1 + i % 1800)) / bucketMillis;
+                String key = TokenBlacklistService.bucketKey(TokenBlacklistService.ACCESS_BLACKLIST_PREFIX, bucket);
+                byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+                connection.hashCommands().hSet(rawKey, (JTI_PREFIX + i).getBytes(StandardCharsets.UTF_8), value);
+                if (bucketKeys.add(key)) {
+                    connection.keyCommands().pExpireAt(rawKey, (bucket + 1) * bucketMillis);
+                }
+            }
+            return null;
+        });
+
+        long before = totalCommands();
+        long scanStart = System.nanoTime();
+        legacyScanCleanup();
+        long scanNanos = System.nanoTime() - scanStart;
+        long scanCommands = totalCommands() - before - 1;
+
+        before = totalCommands();
+        long statsStart = System.nanoTime();
+        blacklistStatsCollector.collect();
+        long statsNanos = System.nanoTime() - statsStart;
+        long statsCommands = totalCommands() - before - 1;
+
+        before = totalCommands();
+        long scanRebuildStart = System.nanoTime();
+        legacyScanRebuild();
+        long scanRebuildNanos = System.nanoTime() - scanRebuildStart;
+        long scanRebuildCommands = totalCommands() - before - 1;
+
+        before = totalCommands();
+        long rebuildStart = System.nanoTime();
+        blacklistFilter.rebuild();
+        long rebuildNanos = System.nanoTime() - rebuildStart;
+        long rebuildCommands = totalCommands() - before - 1;
+
+        System.out.printf("%-14s %10s %10s%n", "mode", "commands", "millis");
+        System.out.printf("%-14s %10d %10d%n", "scan cleanup", scanCommands, scanNanos / 1_000_000);
+        System.out.printf("%-14s %10d %10d%n", "stats", statsCommands, statsNanos / 1_000_000);
+        System.out.printf("%-14s %10d %10d%n", "scan rebuild", scanRebuildCommands, scanRebuildNanos / 1_000_000);
+        System.out.printf("%-14s %10d %10d%n", "rebuild", rebuildCommands, rebuildNanos / 1_000_000);
+
+        assertTrue(blacklistFilter.isReady());
+        assertTrue(blacklistFilter.mightBeBlacklisted(JTI_PREFIX + (ENTRIES - 1)));
+        // One command per live bucket, where the SCANs walk the whole keyspace twice
+        assertTrue(statsCommands * 10 < scanCommands, "stats " + statsCommands + " vs scan " + scanCommands);
+        assertTrue(rebuildCommands < scanRebuildCommands, "rebuild " + rebuildCommands + " vs scan " + scanRebuildCommands);
+    }
+
+    // Cleanup pass as BlacklistCleanupScheduler ran it, kept for comparison
+    private void legacyScanCleanup() {
+        ScanOptions options = ScanOptions.scanOptions().match("blacklist:*").count(100).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                if (ttl != null && ttl < 1000) {
+                    redisTemplate.delete(key);
+                }
+            }
+        }
+    }
+
+    // Filter rebuild as it ran before the live buckets were computed from the clock, kept for comparison
+    private void legacyScanRebuild() {
+        BloomFilter next = new BloomFilter(ENTRIES, 0.01);
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(TokenBlacklistService.ACCESS_BLACKLIST_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String suffix = cursor.next().substring(TokenBlacklistService.ACCESS_BLACKLIST_PREFIX.length());
+                if (suffix.startsWith(TokenBlacklistService.BUCKET_INFIX)) {
+                    for (Object jti : redisTemplate.opsForHash().keys(TokenBlacklistService.ACCESS_BLACKLIST_PREFIX + suffix)) {
+                        next.put(String.valueOf(jti));
+                    }
+                } else {
+                    next.put(suffix);
+                }
+            }
+        }
+        List<String> revoked = new ArrayList<>();
+        options = ScanOptions.scanOptions().match(TokenBlacklistService.USER_REVOKED_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(revoked::add);
+        }
+        if (!revoked.isEmpty()) {
+            redisTemplate.opsForValue().multiGet(revoked);
+        }
+    }
+
+    private long totalCommands() {
+        Properties commandStats = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.serverCommands().info("commandstats"));
+        long total = 0;
+        for (String name : commandStats.stringPropertyNames()) {
+            // cmdstat_get:calls=12,usec=...
+            String stats = commandStats.getProperty(name);
+            int start = stats.indexOf("calls=");
+            if (name.startsWith("cmdstat_") && start >= 0) {
+                int end = stats.indexOf(',', start);
+                total += Long.parseLong(stats.substring(start + 6, end < 0 ? stats.length() : end));
+            }
+        }
+        return total;
+    }
+}
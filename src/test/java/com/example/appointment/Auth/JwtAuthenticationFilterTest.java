@@ -0,0 +1,103 @@
+package com.example.appointment.Auth;
+
+import com.example.appointment.Common.enums.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final Long USER_ID = 7L;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    private TokenBlacklistService tokenBlacklistService;
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter authenticationFilter;
+
+    @BeforeEach
+    void setUp() {
+        // A rebuilt, empty filter, so revocations are answered locally as in production
+        AccessTokenBlacklistFilter blacklistFilter = new AccessTokenBlacklistFilter(redisTemplate, listenerContainer, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(blacklistFilter, "layout", "buckets");
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenReturn(List.of());
+        blacklistFilter.rebuild();
+
+        tokenBlacklistService = new TokenBlacklistService(redisTemplate, blacklistFilter);
+        ReflectionTestUtils.setField(tokenBlacklistService, "accessTokenExpiration", 1_800_000L);
+        jwtUtil = new JwtUtil(tokenBlacklistService, 0);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 1_800_000L);
+        authenticationFilter = new JwtAuthenticationFilter(jwtUtil);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromTheTokenClaims() throws Exception {
+        Authentication authentication = authenticate(jwtUtil.generateAccessToken("staff@example.com", USER_ID, "STAFF"));
+
+        assertNotNull(authentication);
+        assertEquals(new AuthenticatedUser(USER_ID, "staff@example.com", UserRole.STAFF),
+                authentication.getPrincipal());
+        assertEquals("ROLE_STAFF", authentication.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void rejectsATokenIssuedJustBeforeTheUserWasDemotedOrDeleted() throws Exception {
+        String token = jwtUtil.generateAccessToken("staff@example.com", USER_ID, "STAFF");
+        // What UserService does on every update and delete, almost always within the same second
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        tokenBlacklistService.blacklistAllUserAccessTokens(USER_ID);
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void acceptsATokenIssuedAfterTheChange() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        tokenBlacklistService.blacklistAllUserAccessTokens(USER_ID);
+        // Tokens issued in the revocation's millisecond are revoked too
+        Thread.sleep(2);
+
+        assertNotNull(authenticate(jwtUtil.generateAccessToken("staff@example.com", USER_ID, "CUSTOMER")));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        authenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.appointment.Auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * JMH cost of authenticating one request through {@link JwtAuthenticationFilter}.
+ * "legacyParsing" replays the claim extraction the filter did before, five parser builds and
+ * signature checks; "filter" runs the real filter with the parse cache off and on.
+ * Redis is mocked, so only token handling is measured.
+ * Run with: mvn test -Pbenchmark -Dtest=JwtFilterBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class JwtFilterBenchmark {
+
+    @Param({"0", "4096"})
+    public int parseCacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private SecretKey signingKey;
+    private String header;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(mock(TokenBlacklistService.class), parseCacheSize);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 1_800_000L);
+        signingKey = (SecretKey) ReflectionTestUtils.getField(jwtUtil, "signingKey");
+
+        filter = new JwtAuthenticationFilter(jwtUtil);
+        token = jwtUtil.generateAccessToken("customer@example.com", 1L, "CUSTOMER");
+        header = "Bearer " + token;
+    }
+
+    @Benchmark
+    public void filter(Blackhole blackhole) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/appointments");
+        request.addHeader("Authorization", header);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void legacyParsing(Blackhole blackhole) {
+        // extractEmail, validateToken (isTokenExpired + extractJti), extractJti, extractRole
+        blackhole.consume(legacyClaims().getSubject());
+        blackhole.consume(legacyClaims().getExpiration());
+        blackhole.consume(legacyClaims().get("jti", String.class));
+        blackhole.consume(legacyClaims().get("jti", String.class));
+        blackhole.consume(legacyClaims().get("role", String.class));
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parser().verifyWith(signingKey).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Test
+    void runBenchmarks() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
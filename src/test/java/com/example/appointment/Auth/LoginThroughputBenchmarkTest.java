@@ -0,0 +1,101 @@
+package com.example.appointment.Auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Password checks per second with 200 concurrent clients for 10 seconds, BCrypt cost 10.
+ * "inline" runs BCrypt on each client thread as request threads did before; "bounded" goes
+ * through {@link PasswordHashingService} with one hashing thread per CPU and a 64-slot queue,
+ * where the overflow is rejected (429) instead of queueing on the CPU.
+ * Run with: mvn test -Pbenchmark -Dtest=LoginThroughputBenchmarkTest
+ */
+@Tag("benchmark")
+class LoginThroughputBenchmarkTest {
+
+    private static final int CLIENTS = 200;
+    private static final long DURATION_MILLIS = 10_000;
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private final PasswordEncoder encoder = new BCryptPasswordEncoder(10);
+    private final String hash = encoder.encode(PASSWORD);
+
+    @Test
+    void loginsPerSecondUnderContention() throws Exception {
+        Result inline = run(() -> encoder.matches(PASSWORD, hash));
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(cpus, cpus, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64), new ThreadPoolExecutor.AbortPolicy());
+        PasswordHashingService service = new PasswordHashingService(encoder, executor, new SimpleMeterRegistry());
+        Result bounded;
+        try {
+            bounded = run(() -> service.matches(PASSWORD, hash));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(inline.completed > 0 && bounded.completed > 0);
+
+        System.out.printf("%-8s %12s %10s %12s %12s%n", "mode", "logins/sec", "rejected", "p50 ms", "p99 ms");
+        inline.print("inline");
+        bounded.print("bounded");
+    }
+
+    private Result run(Callable<Boolean> login) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.submit(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    long started = System.nanoTime();
+                    try {
+                        assertTrue(login.call());
+                        completed.incrementAndGet();
+                        latencies.add(System.nanoTime() - started);
+                    } catch (PasswordHashingBusyException e) {
+                        rejected.incrementAndGet();
+                        // A client that got 429 backs off briefly before retrying
+                        Thread.sleep(5);
+                    }
+                }
+                return null;
+            });
+        }
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(DURATION_MILLIS * 3, TimeUnit.MILLISECONDS));
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(completed.get(), rejected.get(), percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.round(p * (sorted.size() - 1)))) / 1_000_000.0;
+    }
+
+    private record Result(long completed, long rejected, double p50Millis, double p99Millis) {
+        void print(String mode) {
+            System.out.printf("%-8s %12.0f %10d %12.1f %12.1f%n", mode,
+                    completed / (DURATION_MILLIS / 1000.0), rejected, p50Millis, p99Millis);
+        }
+    }
+}
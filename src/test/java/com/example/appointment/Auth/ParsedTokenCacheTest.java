@@ -0,0 +1,79 @@
+package com.example.appointment.Auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ParsedTokenCacheTest {
+
+    @Test
+    void returnsTheCachedTokenForTheSameDigest() {
+        ParsedTokenCache cache = new ParsedTokenCache(16);
+        ParsedToken token = token("a", Instant.now().plusSeconds(600));
+        cache.put(ParsedTokenCache.digest("header.payload.signature"), token);
+
+        assertSame(token, cache.get(ParsedTokenCache.digest("header.payload.signature")));
+        assertNull(cache.get(ParsedTokenCache.digest("header.payload.other")));
+    }
+
+    @Test
+    void collidingDigestsReplaceEachOtherWithoutFalseHits() {
+        ParsedTokenCache cache = new ParsedTokenCache(16);
+        // Same first four bytes, so the same slot
+        byte[] first = digest(1);
+        byte[] second = digest(2);
+        ParsedToken firstToken = token("first", Instant.now().plusSeconds(600));
+        ParsedToken secondToken = token("second", Instant.now().plusSeconds(600));
+
+        cache.put(first, firstToken);
+        assertNull(cache.get(second));
+
+        cache.put(second, secondToken);
+        assertSame(secondToken, cache.get(second));
+        assertNull(cache.get(first));
+    }
+
+    @Test
+    void checksExpiryOnEveryHit() throws InterruptedException {
+        ParsedTokenCache cache = new ParsedTokenCache(16);
+        byte[] digest = ParsedTokenCache.digest("header.payload.signature");
+        cache.put(digest, token("a", Instant.now().plusMillis(100)));
+        assertNotNull(cache.get(digest));
+
+        Thread.sleep(150);
+        assertNull(cache.get(digest));
+    }
+
+    @Test
+    void jwtUtilVerifiesATokenOnceWhileItIsCached() {
+        JwtUtil cached = jwtUtil(4096);
+        String token = cached.generateAccessToken("customer@example.com", 1L, "CUSTOMER");
+        assertSame(cached.parseToken(token), cached.parseToken(token));
+
+        JwtUtil uncached = jwtUtil(0);
+        String other = uncached.generateAccessToken("customer@example.com", 1L, "CUSTOMER");
+        assertNotSame(uncached.parseToken(other), uncached.parseToken(other));
+        assertEquals(uncached.parseToken(other), uncached.parseToken(other));
+    }
+
+    private static JwtUtil jwtUtil(int parseCacheSize) {
+        JwtUtil jwtUtil = new JwtUtil(mock(TokenBlacklistService.class), parseCacheSize);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 1_800_000L);
+        return jwtUtil;
+    }
+
+    private static byte[] digest(int last) {
+        byte[] digest = new byte[32];
+        digest[0] = 7;
+        digest[31] = (byte) last;
+        return digest;
+    }
+
+    private static ParsedToken token(String jti, Instant expiresAt) {
+        return new ParsedToken("customer@example.com", 1L, "CUSTOMER", jti, Instant.now(), expiresAt);
+    }
+}
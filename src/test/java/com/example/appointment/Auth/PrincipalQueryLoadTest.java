@@ -0,0 +1,82 @@
+package com.example.appointment.Auth;
+
+import com.example.appointment.User.UserModel;
+import com.example.appointment.User.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements issued by 10k authenticated GETs to an endpoint that does no database work
+ * itself, so every statement counted comes from authentication. The "per-request lookup" row
+ * replays the findByEmail the filter used to run for each request.
+ * Run with: mvn test -Pbenchmark -Dtest=PrincipalQueryLoadTest
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PrincipalQueryLoadTest {
+
+    private static final int REQUESTS = 10_000;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void authenticatedRequestsDoNotQueryUsers() throws Exception {
+        List<UserModel> users = userRepository.findAll();
+        assumeTrue(!users.isEmpty(), "Needs at least one user in the database");
+        UserModel user = users.get(0);
+
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        String header = "Bearer " + jwtUtil.generateAccessToken(user.getEmail(), user.getId(), user.getRole().name());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get("/api/test/private/hello").header("Authorization", header))
+                    .andExpect(status().isOk());
+        }
+        long statelessNanos = System.nanoTime() - start;
+        long statelessQueries = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            userRepository.findByEmail(user.getEmail());
+        }
+        long lookupNanos = System.nanoTime() - start;
+        long lookupQueries = statistics.getPrepareStatementCount();
+
+        assertEquals(0, statelessQueries);
+
+        System.out.printf("%-20s %10s %12s%n", "mode", "queries", "millis");
+        System.out.printf("%-20s %10d %12d%n", "per-request lookup", lookupQueries, lookupNanos / 1_000_000);
+        System.out.printf("%-20s %10d %12d%n", "stateless", statelessQueries, statelessNanos / 1_000_000);
+        System.out.printf("Queries saved per %d requests: %d%n", REQUESTS, lookupQueries - statelessQueries);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.appointment.Auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Index size and point-lookup latency of a session table keyed by the full refresh token text
+ * versus its 32-byte SHA-256, at 10M rows. Generated tokens share the JWT header prefix real
+ * ones have. Uses its own scratch tables and drops them afterwards; override the row count
+ * with -Dsessions=N.
+ * Run with: mvn test -Pbenchmark -Dtest=SessionLookupBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+class SessionLookupBenchmarkTest {
+
+    private static final int SESSIONS = Integer.getInteger("sessions", 10_000_000);
+    private static final int LOOKUPS = 10_000;
+    private static final String TOKEN_EXPRESSION =
+            "'eyJhbGciOiJIUzI1NiJ9.eyJqdGkiOiI' || repeat(md5(i::text), 6) || '.' || md5('sig' || i)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_sessions_text");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_sessions_digest");
+    }
+
+    @Test
+    void refreshTokenLookup() throws Exception {
+        cleanUp();
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE bench_sessions_text (id BIGINT PRIMARY KEY, refresh_token TEXT NOT NULL)");
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE bench_sessions_digest (id BIGINT PRIMARY KEY, token_hash BYTEA NOT NULL)");
+        jdbcTemplate.execute("INSERT INTO bench_sessions_text SELECT i, " + TOKEN_EXPRESSION
+                + " FROM generate_series(1, " + SESSIONS + ") AS i");
+        jdbcTemplate.execute("INSERT INTO bench_sessions_digest SELECT id, sha256(convert_to(refresh_token, 'UTF8')) FROM bench_sessions_text");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX bench_sessions_text_key ON bench_sessions_text (refresh_token)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX bench_sessions_digest_key ON bench_sessions_digest (token_hash)");
+        jdbcTemplate.execute("ANALYZE bench_sessions_text");
+        jdbcTemplate.execute("ANALYZE bench_sessions_digest");
+
+        String[] tokens = new String[LOOKUPS];
+        byte[][] digests = new byte[LOOKUPS][];
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        for (int i = 0; i < LOOKUPS; i++) {
+            long id = ThreadLocalRandom.current().nextLong(1, SESSIONS + 1);
+            tokens[i] = jdbcTemplate.queryForObject("SELECT refresh_token FROM bench_sessions_text WHERE id = ?", String.class, id);
+            digests[i] = sha256.digest(tokens[i].getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Warm up both indexes
+        for (int i = 0; i < 1000; i++) {
+            jdbcTemplate.queryForObject("SELECT id FROM bench_sessions_text WHERE refresh_token = ?", Long.class, tokens[i]);
+            jdbcTemplate.queryForObject("SELECT id FROM bench_sessions_digest WHERE token_hash = ?", Long.class, (Object) digests[i]);
+        }
+
+        long start = System.nanoTime();
+        for (String token : tokens) {
+            assertNotNull(jdbcTemplate.queryForObject("SELECT id FROM bench_sessions_text WHERE refresh_token = ?", Long.class, token));
+        }
+        long textNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (byte[] digest : digests) {
+            assertNotNull(jdbcTemplate.queryForObject("SELECT id FROM bench_sessions_digest WHERE token_hash = ?", Long.class, (Object) digest));
+        }
+        long digestNanos = System.nanoTime() - start;
+
+        System.out.printf("%-8s %14s %16s%n", "key", "index size", "lookup us/op");
+        System.out.printf("%-8s %14s %16.1f%n", "text", indexSize("bench_sessions_text_key"), textNanos / 1000.0 / LOOKUPS);
+        System.out.printf("%-8s %14s %16.1f%n", "sha256", indexSize("bench_sessions_digest_key"), digestNanos / 1000.0 / LOOKUPS);
+    }
+
+    private String indexSize(String index) {
+        return jdbcTemplate.queryForObject("SELECT pg_size_pretty(pg_relation_size(?::regclass))", String.class, index);
+    }
+}
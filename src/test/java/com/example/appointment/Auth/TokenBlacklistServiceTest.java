@@ -0,0 +1,150 @@
+package com.example.appointment.Auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBlacklistServiceTest {
+
+    private static final long USER_ID = 7L;
+    // Mid-second, so second precision would get the boundaries wrong
+    private static final long REVOKED_AT = 1_760_000_000_500L;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private AccessTokenBlacklistFilter blacklistFilter;
+
+    private TokenBlacklistService tokenBlacklistService;
+
+    @BeforeEach
+    void setUp() {
+        tokenBlacklistService = new TokenBlacklistService(redisTemplate, blacklistFilter);
+        ReflectionTestUtils.setField(tokenBlacklistService, "accessTokenExpiration", 1_800_000L);
+    }
+
+    @Test
+    void revokesTokensIssuedUpToTheRevocationMillisecond() {
+        when(blacklistFilter.isReady()).thenReturn(true);
+        when(blacklistFilter.revokedBefore(USER_ID)).thenReturn(REVOKED_AT);
+
+        // Issued earlier in the same second
+        assertTrue(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT - 400)));
+        assertTrue(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT)));
+        // Logging in again right after the revocation
+        assertFalse(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT + 1)));
+    }
+
+    @Test
+    void revokesAnAccessTokenIssuedJustBeforeTheRevocation() {
+        JwtUtil jwtUtil = new JwtUtil(tokenBlacklistService, 0);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 1_800_000L);
+        ParsedToken token = jwtUtil.parseToken(jwtUtil.generateAccessToken("customer@example.com", USER_ID, "CUSTOMER"));
+        when(blacklistFilter.isReady()).thenReturn(true);
+
+        // Revoked one millisecond after issue, almost always within the same second
+        when(blacklistFilter.revokedBefore(USER_ID)).thenReturn(token.issuedAt().toEpochMilli() + 1);
+        assertFalse(jwtUtil.isValid(token));
+
+        when(blacklistFilter.revokedBefore(USER_ID)).thenReturn(token.issuedAt().toEpochMilli() - 1);
+        assertTrue(jwtUtil.isValid(token));
+    }
+
+    @Test
+    void doesNotRevokeWithoutARevocationOrClaims() {
+        when(blacklistFilter.isReady()).thenReturn(true);
+
+        assertFalse(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT)));
+        assertFalse(tokenBlacklistService.isRevokedForUser(null, Instant.ofEpochMilli(REVOKED_AT)));
+        assertFalse(tokenBlacklistService.isRevokedForUser(USER_ID, null));
+    }
+
+    @Test
+    void readsTheRevocationFromRedisUntilTheFilterIsReady() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("revoked:user:" + USER_ID)).thenReturn(REVOKED_AT);
+
+        assertTrue(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT - 400)));
+        assertFalse(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT + 1)));
+        verify(blacklistFilter, never()).revokedBefore(anyLong());
+    }
+
+    @Test
+    void allowsTheTokenWhenRedisFails() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("revoked:user:" + USER_ID)).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertFalse(tokenBlacklistService.isRevokedForUser(USER_ID, Instant.ofEpochMilli(REVOKED_AT - 1000)));
+    }
+
+    @Test
+    void writesTheBucketTheReaderLooksIn() throws Exception {
+        ReflectionTestUtils.setField(tokenBlacklistService, "layout", "buckets");
+        when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) RedisSerializer.java());
+        // Expires right at the start of a bucket, where a write timed from "now" could miss it
+        long bucket = System.currentTimeMillis() / 300_000 + 2;
+        Instant expiresAt = Instant.ofEpochMilli(bucket * 300_000);
+
+        tokenBlacklistService.blacklistRefreshToken("jti", expiresAt);
+
+        ArgumentCaptor<RedisCallback<Object>> pipeline = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redisTemplate).executePipelined(pipeline.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        pipeline.getValue().doInRedis(connection);
+        verify(hashCommands).hSet(aryEq(("blacklist:refresh:b:" + bucket).getBytes(StandardCharsets.UTF_8)),
+                aryEq("jti".getBytes(StandardCharsets.UTF_8)), any());
+
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.hasKey("blacklist:refresh:b:" + bucket, "jti")).thenReturn(true);
+        assertTrue(tokenBlacklistService.isRefreshTokenBlacklisted("jti", expiresAt));
+    }
+
+    @Test
+    void storesTheRevocationInMilliseconds() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        long before = System.currentTimeMillis();
+
+        tokenBlacklistService.blacklistAllUserAccessTokens(USER_ID);
+
+        ArgumentCaptor<Object> stored = ArgumentCaptor.forClass(Object.class);
+        verify(valueOperations).set(eq("revoked:user:" + USER_ID), stored.capture(), eq(1_800_000L), eq(TimeUnit.MILLISECONDS));
+        long epoch = (Long) stored.getValue();
+        assertTrue(epoch >= before && epoch <= System.currentTimeMillis());
+        verify(blacklistFilter).publishUserRevocation(USER_ID, epoch);
+    }
+}
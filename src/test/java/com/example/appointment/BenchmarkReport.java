@@ -0,0 +1,36 @@
+package com.example.appointment;
+
+/**
+ * Result tables and percentiles for the benchmark tests, which print what they measure
+ * instead of asserting on timings.
+ */
+public final class BenchmarkReport {
+
+    private final String rowFormat;
+
+    private BenchmarkReport(String rowFormat) {
+        this.rowFormat = rowFormat + "%n";
+    }
+
+    /**
+     * Print the headings of a table and return it for its rows.
+     * @param rowFormat printf format of one row, e.g. "%-8s %12d %10.1f"; each heading is
+     *                  printed as a string with the width of its column
+     */
+    public static BenchmarkReport table(String rowFormat, String... headings) {
+        System.out.printf(rowFormat.replaceAll("%(-?\\d*)(\\.\\d+)?[a-zA-Z]", "%$1s") + "%n", (Object[]) headings);
+        return new BenchmarkReport(rowFormat);
+    }
+
+    public void row(Object... values) {
+        System.out.printf(rowFormat, values);
+    }
+
+    /**
+     * Nearest-rank percentile of samples sorted in ascending order.
+     */
+    public static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.appointment.Notifications;
+
+import com.example.appointment.Notifications.dto.NotificationPage;
+import com.example.appointment.Notifications.dto.NotificationResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InboxCursorTest {
+
+    private static final Long USER_ID = 7L;
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    void decodesWhatItEncodes() {
+        InboxCursor cursor = new InboxCursor(NEWEST, 123_456L);
+
+        String encoded = cursor.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+        assertEquals(cursor, InboxCursor.decode(encoded));
+        // Whole seconds print without fractions and must still parse
+        InboxCursor onTheSecond = new InboxCursor(NEWEST.withNano(0), 1L);
+        assertEquals(onTheSecond, InboxCursor.decode(onTheSecond.encode()));
+    }
+
+    @Test
+    void rejectsCursorsItDidNotProduce() {
+        assertThrows(IllegalArgumentException.class, () -> InboxCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> InboxCursor.decode(encode("2025-03-14T09:26:53")));
+        assertThrows(IllegalArgumentException.class, () -> InboxCursor.decode(encode("yesterday,1")));
+        assertThrows(IllegalArgumentException.class, () -> InboxCursor.decode(encode("2025-03-14T09:26:53,abc")));
+    }
+
+    @Test
+    void pointsTheNextCursorAtTheLastItemWhenAnotherPageFollows() {
+        when(notificationRepository.findInboxPage(USER_ID, 3)).thenReturn(rows(3));
+
+        NotificationPage page = notificationService.getInboxPage(USER_ID, null, 2);
+
+        assertEquals(List.of(3L, 2L), page.items().stream().map(NotificationResponse::getId).toList());
+        assertEquals(new InboxCursor(NEWEST.minusMinutes(1), 2L), InboxCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void endsWithoutACursorOnTheLastPage() {
+        when(notificationRepository.findInboxPage(USER_ID, 3)).thenReturn(rows(2));
+
+        NotificationPage page = notificationService.getInboxPage(USER_ID, null, 2);
+
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void readsThePageAfterTheCursorAndCapsTheLimit() {
+        InboxCursor after = new InboxCursor(NEWEST, 42L);
+        when(notificationRepository.findInboxPageAfter(USER_ID, NEWEST, 42L, 101)).thenReturn(List.of());
+
+        NotificationPage page = notificationService.getInboxPage(USER_ID, after.encode(), 1000);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+        verify(notificationRepository, never()).findInboxPage(any(), anyInt());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Newest first: ids count down from count, one minute apart
+    private static List<NotificationInboxRow> rows(int count) {
+        List<NotificationInboxRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(row((long) count - i, NEWEST.minusMinutes(i)));
+        }
+        return rows;
+    }
+
+    private static NotificationInboxRow row(Long id, LocalDateTime createdAt) {
+        return new NotificationInboxRow() {
+            public Long getId() { return id; }
+            public String getData() { return "notification " + id; }
+            public LocalDateTime getReadedAt() { return null; }
+            public LocalDateTime getCreatedAt() { return createdAt; }
+            public Long getUserId() { return USER_ID; }
+            public String getType() { return "ACCEPT"; }
+        };
+    }
+}
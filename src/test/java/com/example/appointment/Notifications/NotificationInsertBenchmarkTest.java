@@ -0,0 +1,104 @@
+package com.example.appointment.Notifications;
+
+import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.User.UserModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Inserts/sec for 10k notifications against the configured database.
+ * "identity" replays what IDENTITY generation did, one INSERT ... RETURNING id round trip per row;
+ * "pooled" is saveAll with pooled sequence IDs and hibernate.jdbc.batch_size.
+ * Run with: mvn test -Pbenchmark -Dtest=NotificationInsertBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+class NotificationInsertBenchmarkTest {
+
+    private static final int NOTIFICATIONS = 10_000;
+    private static final String MARKER = "insert-benchmark";
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM notifications WHERE data = ?", MARKER);
+    }
+
+    @Test
+    void notificationInsertThroughput() {
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users LIMIT 1", Long.class);
+        assumeTrue(!userIds.isEmpty(), "Needs at least one user in the database");
+        Long userId = userIds.get(0);
+
+        // Warm up both paths
+        insertIdentityStyle(userId, 500);
+        insertPooled(userId, 500);
+        cleanUp();
+
+        long identityNanos = insertIdentityStyle(userId, NOTIFICATIONS);
+        long pooledNanos = insertPooled(userId, NOTIFICATIONS);
+
+        assertEquals(2L * NOTIFICATIONS,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications WHERE data = ?", Long.class, MARKER));
+
+        System.out.printf("%-10s %12s %14s%n", "mode", "millis", "inserts/sec");
+        System.out.printf("%-10s %12d %14.0f%n", "identity", identityNanos / 1_000_000, perSecond(identityNanos));
+        System.out.printf("%-10s %12d %14.0f%n", "pooled", pooledNanos / 1_000_000, perSecond(pooledNanos));
+    }
+
+    private long insertIdentityStyle(Long userId, int count) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                jdbcTemplate.queryForObject(
+                        "INSERT INTO notifications (data, created_at, user_id, type) VALUES (?, ?, ?, ?) RETURNING id",
+                        Long.class, MARKER, Timestamp.valueOf(LocalDateTime.now()), userId, NotificationType.ORDERED.name());
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private long insertPooled(Long userId, int count) {
+        UserModel user = new UserModel();
+        user.setId(userId);
+
+        List<NotificationEntity> notifications = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            NotificationEntity notification = new NotificationEntity();
+            notification.setData(MARKER);
+            notification.setCreatedAt(LocalDateTime.now());
+            notification.setUser(user);
+            notification.setType(NotificationType.ORDERED);
+            notifications.add(notification);
+        }
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> notificationRepository.saveAll(notifications));
+        return System.nanoTime() - start;
+    }
+
+    private static double perSecond(long nanos) {
+        return NOTIFICATIONS / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.appointment.Notifications;
+
+import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.Notifications.dto.WebSocketNotificationDTO;
+import com.example.appointment.User.UserModel;
+import com.example.appointment.config.WebSocketPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+
+    @Mock
+    private WebSocketPublisher webSocketPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<NotificationOutboxEntry>> outboxWrites;
+
+    @Captor
+    private ArgumentCaptor<List<NotificationEntity>> inserts;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        // The worker thread is never started; tests run deliverBatch() themselves
+        outbox = new NotificationOutbox(notificationRepository, outboxRepository, webSocketPublisher, transactionManager, meterRegistry);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void writesTheOutboxInTheCallersTransactionAndWakesTheWorkerAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        outbox.enqueue(user(1L), NotificationType.ACCEPT, "accepted");
+        outbox.enqueueAll(List.of(notification(2L, "completed"), notification(3L, "completed")));
+
+        verify(outboxRepository, times(2)).saveAll(outboxWrites.capture());
+        assertEquals(List.of(1L, 2L, 3L), outboxWrites.getAllValues().stream().flatMap(List::stream)
+                .map(NotificationOutboxEntry::getUserId).toList());
+        assertEquals("user1", outboxWrites.getAllValues().get(0).get(0).getUsername());
+        verifyNoInteractions(notificationRepository, webSocketPublisher);
+        assertEquals(0, wakeUps());
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertEquals(2, wakeUps());
+    }
+
+    @Test
+    void leavesTheWorkerAsleepWhenTheTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        outbox.enqueue(user(1L), NotificationType.ACCEPT, "accepted");
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // The outbox row itself is rolled back with the caller's transaction
+        assertEquals(0, wakeUps());
+        verifyNoInteractions(notificationRepository, webSocketPublisher);
+    }
+
+    @Test
+    void movesAClaimedBatchIntoTheInboxInUserIdOrderAndPushesIt() {
+        stubSaveAll();
+        when(outboxRepository.claim(anyInt())).thenReturn(List.of(
+                entry(1L, 3L, "third"), entry(2L, 1L, "first"), entry(3L, 1L, "first again")));
+
+        assertEquals(3, outbox.deliverBatch());
+
+        verify(notificationRepository).saveAll(inserts.capture());
+        // Each user's notifications stay in the order raised
+        assertEquals(List.of("first", "first again", "third"),
+                inserts.getValue().stream().map(NotificationEntity::getData).toList());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L, 3L, 1L));
+        verify(webSocketPublisher, times(2)).sendToUser(eq("1"), eq("/queue/notifications"), any(WebSocketNotificationDTO.class));
+        verify(webSocketPublisher).sendToUser(eq("3"), eq("/queue/notifications"), any(WebSocketNotificationDTO.class));
+    }
+
+    @Test
+    void retriesAFailedBatchRowByRowAndDropsOnlyTheBadRow() {
+        stubSaveAll();
+        NotificationOutboxEntry first = entry(1L, 1L, "first");
+        NotificationOutboxEntry bad = entry(2L, 2L, "no partition");
+        NotificationOutboxEntry third = entry(3L, 3L, "third");
+        when(outboxRepository.claim(anyInt())).thenReturn(List.of(first, bad, third));
+        when(outboxRepository.claimById(1L)).thenReturn(Optional.of(first));
+        when(outboxRepository.claimById(2L)).thenReturn(Optional.of(bad));
+        when(outboxRepository.claimById(3L)).thenReturn(Optional.of(third));
+
+        outbox.deliverBatch();
+
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(webSocketPublisher).sendToUser(eq("1"), any(), any());
+        verify(webSocketPublisher).sendToUser(eq("3"), any(), any());
+        verify(webSocketPublisher, never()).sendToUser(eq("2"), any(), any());
+        assertEquals(1.0, meterRegistry.get("notifications.delivery.failed").counter().count());
+    }
+
+    @Test
+    void keepsTheEntryWhenTheFailureMayBeTransient() {
+        NotificationOutboxEntry entry = entry(1L, 1L, "first");
+        when(outboxRepository.claim(anyInt())).thenReturn(List.of(entry));
+        when(outboxRepository.claimById(1L)).thenReturn(Optional.of(entry));
+        when(notificationRepository.saveAll(anyList())).thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+
+        assertThrows(QueryTimeoutException.class, () -> outbox.deliverBatch());
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+        verifyNoInteractions(webSocketPublisher);
+    }
+
+    // An insert containing the "no partition" notification fails, like a row outside every partition
+    private void stubSaveAll() {
+        AtomicLong nextId = new AtomicLong(100);
+        when(notificationRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<NotificationEntity> entities = invocation.getArgument(0);
+            if (entities.stream().anyMatch(n -> "no partition".equals(n.getData()))) {
+                throw new DataIntegrityViolationException("no partition of relation \"notifications\" found for row");
+            }
+            entities.forEach(n -> n.setId(nextId.getAndIncrement()));
+            return entities;
+        });
+    }
+
+    private int wakeUps() {
+        return ((Semaphore) ReflectionTestUtils.getField(outbox, "wakeUp")).availablePermits();
+    }
+
+    private static NotificationOutboxEntry entry(Long id, Long userId, String data) {
+        return new NotificationOutboxEntry(id, userId, "user" + userId, NotificationType.EXECUTED, data, LocalDateTime.now());
+    }
+
+    private static UserModel user(Long id) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+
+    private static NotificationEntity notification(Long userId, String data) {
+        NotificationEntity notification = new NotificationEntity();
+        notification.setUser(user(userId));
+        notification.setType(NotificationType.EXECUTED);
+        notification.setData(data);
+        return notification;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.appointment.Notifications;
+
+import com.example.appointment.BenchmarkReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.appointment.BenchmarkReport.percentile;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inbox query latency on a notifications table of 100M rows over two years, one plain table
+ * versus monthly partitions, both with the production indexes. One user in a hundred rows
+ * belongs to a heavy user; the rest spread over 10k users. Also times removing the oldest
+ * month: a row DELETE against dropping its partition.
+ *
+ * Uses its own scratch tables and drops them afterwards; override the row count with
+ * -Dnotifications=N. Generating 100M rows twice takes a while and needs tens of GB of disk.
+ * Run with: mvn test -Pbenchmark -Dtest=NotificationPartitionBenchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+class NotificationPartitionBenchmarkTest {
+
+    private static final long NOTIFICATIONS = Long.getLong("notifications", 100_000_000L);
+    private static final long CHUNK = 5_000_000L;
+    private static final int MONTHS = 24;
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+    private static final int USERS = 10_000;
+    private static final long HEAVY_USER = 1;
+    private static final long LIGHT_USER = 4_242;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+
+    private static final String COLUMNS = "id BIGINT NOT NULL, data VARCHAR(256), readed_at TIMESTAMP NULL, " +
+            "created_at TIMESTAMP NOT NULL, user_id BIGINT NOT NULL, type VARCHAR(50) NOT NULL";
+
+    // Rows in id order are spread evenly over 720 days; every hundredth belongs to the heavy user.
+    // A String.format pattern taking the row count and the id range of one chunk
+    private static final String GENERATED_ROWS = "SELECT i, 'Your appointment has been accepted.', " +
+            "CASE WHEN i %% 20 = 0 THEN NULL ELSE ts + interval '1 hour' END, ts, " +
+            "CASE WHEN i %% 100 = 0 THEN " + HEAVY_USER + " ELSE 2 + (i * 7919) %% " + (USERS - 1) + " END, 'ACCEPT' " +
+            "FROM (SELECT i, TIMESTAMP '" + FIRST_MONTH.atDay(1) + "' + (i::float8 / %d) * interval '" + (MONTHS * 30) + " days' AS ts " +
+            "FROM generate_series(%d, %d) i) g";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_notifications_flat");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_notifications_part");
+    }
+
+    @Test
+    void inboxLatencyPartitionedVersusUnpartitioned() {
+        cleanUp();
+        createTables();
+        for (long from = 1; from <= NOTIFICATIONS; from += CHUNK) {
+            long to = Math.min(NOTIFICATIONS, from + CHUNK - 1);
+            String rows = String.format(GENERATED_ROWS, NOTIFICATIONS, from, to);
+            jdbcTemplate.execute("INSERT INTO bench_notifications_flat " + rows);
+            jdbcTemplate.execute("INSERT INTO bench_notifications_part " + rows);
+        }
+        createIndexes("bench_notifications_flat");
+        createIndexes("bench_notifications_part");
+        jdbcTemplate.execute("VACUUM ANALYZE bench_notifications_flat");
+        jdbcTemplate.execute("VACUUM ANALYZE bench_notifications_part");
+
+        assertEquals(NOTIFICATIONS, jdbcTemplate.queryForObject("SELECT count(*) FROM bench_notifications_part", Long.class));
+
+        // A cursor halfway back, as reached by paging down an old inbox
+        Timestamp cursor = Timestamp.valueOf(FIRST_MONTH.plusMonths(MONTHS / 2).atDay(15).atStartOfDay());
+
+        BenchmarkReport latencies = BenchmarkReport.table("%-24s %-12s %10d %10d", "query", "table", "p50 us", "p99 us");
+        for (String table : List.of("bench_notifications_flat", "bench_notifications_part")) {
+            String label = table.endsWith("flat") ? "flat" : "partitioned";
+            for (long user : new long[]{HEAVY_USER, LIGHT_USER}) {
+                String who = user == HEAVY_USER ? "heavy" : "light";
+                print(latencies, "first page " + who, label, measure("SELECT id, data, readed_at, created_at, user_id, type FROM " + table +
+                        " WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT 21", user));
+                print(latencies, "next page " + who, label, measure("SELECT id, data, readed_at, created_at, user_id, type FROM " + table +
+                        " WHERE user_id = ? AND created_at <= ? AND (created_at, id) < (?, ?) " +
+                        "ORDER BY created_at DESC, id DESC LIMIT 21", user, cursor, cursor, Long.MAX_VALUE));
+                print(latencies, "unread " + who, label, measure("SELECT id FROM " + table +
+                        " WHERE user_id = ? AND readed_at IS NULL ORDER BY created_at DESC, id DESC LIMIT 100", user));
+            }
+        }
+
+        BenchmarkReport removal = BenchmarkReport.table("%-24s %14d", "remove oldest month", "millis");
+        YearMonth oldest = FIRST_MONTH;
+        long start = System.nanoTime();
+        jdbcTemplate.update("DELETE FROM bench_notifications_flat WHERE created_at < ?",
+                Timestamp.valueOf(oldest.plusMonths(1).atDay(1).atStartOfDay()));
+        removal.row("flat DELETE", (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        jdbcTemplate.execute("ALTER TABLE bench_notifications_part DETACH PARTITION " + partition(oldest));
+        jdbcTemplate.execute("DROP TABLE " + partition(oldest));
+        removal.row("partition DETACH + DROP", (System.nanoTime() - start) / 1_000_000);
+
+        BenchmarkReport sizes = BenchmarkReport.table("%-24s %14s", "table", "total size");
+        for (String table : List.of("bench_notifications_flat", "bench_notifications_part")) {
+            sizes.row(table, jdbcTemplate.queryForObject(
+                    "SELECT pg_size_pretty(sum(pg_total_relation_size(relid))) FROM pg_partition_tree(?::regclass)",
+                    String.class, table));
+        }
+    }
+
+    private void createTables() {
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE bench_notifications_flat (" + COLUMNS + ", PRIMARY KEY (id))");
+        jdbcTemplate.execute("CREATE TABLE bench_notifications_part (" + COLUMNS + ", PRIMARY KEY (id, created_at)) " +
+                "PARTITION BY RANGE (created_at)");
+        for (int i = 0; i < MONTHS; i++) {
+            YearMonth month = FIRST_MONTH.plusMonths(i);
+            jdbcTemplate.execute("CREATE UNLOGGED TABLE " + partition(month) + " PARTITION OF bench_notifications_part " +
+                    "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    // Same indexes as the notifications table
+    private void createIndexes(String table) {
+        jdbcTemplate.execute("CREATE INDEX ON " + table + " (user_id, created_at DESC, id DESC) INCLUDE (data, readed_at, type)");
+        jdbcTemplate.execute("CREATE INDEX ON " + table + " (user_id, created_at DESC, id DESC) WHERE readed_at IS NULL");
+        jdbcTemplate.execute("CREATE INDEX ON " + table + " (type)");
+    }
+
+    private long[] measure(String sql, Object... args) {
+        for (int i = 0; i < WARMUP; i++) {
+            jdbcTemplate.queryForList(sql, args);
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            jdbcTemplate.queryForList(sql, args);
+            samples[i] = (System.nanoTime() - start) / 1000;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void print(BenchmarkReport report, String query, String table, long[] sorted) {
+        report.row(query, table, percentile(sorted, 50), percentile(sorted, 99));
+    }
+
+    private static String partition(YearMonth month) {
+        return "bench_notifications_part_" + month.getYear() + "_" + String.format("%02d", month.getMonthValue());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.appointment.Notifications;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the plans of the notification inbox queries, so a dropped index or a rewritten query
+ * that falls back to a sequential scan fails here. Runs the migrations against a throwaway
+ * Postgres container and every test in a transaction that is rolled back; skipped when Docker
+ * is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationQueryPlanTest {
+
+    private static final int NOTIFICATIONS = 50_000;
+    private static final int UNREAD_EVERY = 50;
+    private static final String MARKER = "plan-test";
+
+    @Container
+    private static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:17");
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Long userId;
+    private List<Long> someIds;
+    private List<String> dataPartitions;
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), true);
+        dataSource.setAutoCommit(false);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        userId = jdbcTemplate.queryForObject("INSERT INTO users (username, email, phone_number, password, role) " +
+                "VALUES ('plan-test', 'plan-test@example.com', '0000000000', 'x', 'CUSTOMER') RETURNING id", Long.class);
+
+        // The rows go back further than the partitions the migration creates
+        dataPartitions = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(LocalDateTime.now().minusMinutes(NOTIFICATIONS));
+             !month.isAfter(YearMonth.now()); month = month.plusMonths(1)) {
+            String partition = NotificationPartitionMaintenance.partitionName(month);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF notifications " +
+                    "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            dataPartitions.add(partition);
+        }
+
+        // One notification a minute, one in UNREAD_EVERY still unread
+        jdbcTemplate.update("INSERT INTO notifications (data, created_at, user_id, type, readed_at) " +
+                "SELECT ?, LOCALTIMESTAMP - g * interval '1 minute', ?, 'ORDERED', " +
+                "CASE WHEN g % ? = 0 THEN NULL ELSE LOCALTIMESTAMP END FROM generate_series(1, ?) g",
+                MARKER, userId, UNREAD_EVERY, NOTIFICATIONS);
+        // Unlike VACUUM, ANALYZE runs inside the transaction and its statistics are visible to it
+        jdbcTemplate.execute("ANALYZE notifications");
+
+        someIds = jdbcTemplate.queryForList(
+                "SELECT id FROM notifications WHERE data = ? ORDER BY id LIMIT 50", Long.class, MARKER);
+    }
+
+    @AfterEach
+    void rollBack() throws SQLException {
+        if (dataSource != null) {
+            dataSource.getConnection().rollback();
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void unreadNotificationsUsePartialIndex() {
+        String plan = explain("SELECT * FROM notifications WHERE user_id = " + userId + " AND readed_at IS NULL");
+        assertUsesIndex(plan, "idx_notifications_user_unread");
+    }
+
+    @Test
+    void inboxPagesUseKeysetIndex() {
+        assertUsesIndex(explain("SELECT id, data, readed_at, created_at, user_id, type FROM notifications " +
+                "WHERE user_id = " + userId + " ORDER BY created_at DESC, id DESC LIMIT 21"),
+                "idx_notifications_user_created_id");
+
+        // A literal, like the bound parameter of a custom plan, so pruning happens at plan time
+        String cursor = "TIMESTAMP '" + Timestamp.valueOf(LocalDateTime.now().minusDays(20)) + "'";
+        String nextPage = explain("SELECT id, data, readed_at, created_at, user_id, type FROM notifications " +
+                "WHERE user_id = " + userId + " AND created_at <= " + cursor + " " +
+                "AND (created_at, id) < (" + cursor + ", 0) " +
+                "ORDER BY created_at DESC, id DESC LIMIT 21");
+        assertUsesIndex(nextPage, "idx_notifications_user_created_id");
+
+        // Partitions newer than the cursor are pruned
+        String nextMonth = NotificationPartitionMaintenance.partitionName(YearMonth.now().plusMonths(1));
+        assertFalse(nextPage.contains(nextMonth), () -> nextMonth + " not pruned:\n" + nextPage);
+    }
+
+    @Test
+    void ownerScopedWritesUsePrimaryKey() {
+        assertUsesIndex(explain("UPDATE notifications SET readed_at = COALESCE(readed_at, now()) " +
+                "WHERE id = " + someIds.get(0) + " AND user_id = " + userId + " RETURNING id"), "notifications_pkey");
+
+        String ids = someIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        // Either the primary key or the partial unread index is fine here
+        String batchRead = explain("UPDATE notifications SET readed_at = now() " +
+                "WHERE id IN (" + ids + ") AND user_id = " + userId + " AND readed_at IS NULL");
+        assertNoSequentialScan(batchRead);
+        assertUsesIndex(explain("DELETE FROM notifications WHERE id IN (" + ids + ") AND user_id = " + userId),
+                "notifications_pkey");
+    }
+
+    // EXPLAIN without ANALYZE, so writes are planned but not run
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (COSTS OFF) " + sql, String.class));
+    }
+
+    // The index on the parent table or its copy on any monthly partition
+    private void assertUsesIndex(String plan, String indexName) {
+        List<String> names = new ArrayList<>(jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass", String.class, indexName));
+        names.add(indexName);
+        assertTrue(names.stream().anyMatch(plan::contains), () -> "Expected " + indexName + " in plan:\n" + plan);
+        assertNoSequentialScan(plan);
+    }
+
+    // Empty partitions are cheapest to scan sequentially, so only the ones holding rows are checked
+    private void assertNoSequentialScan(String plan) {
+        for (String partition : dataPartitions) {
+            assertFalse(plan.contains("Seq Scan on " + partition), () -> "Sequential scan in plan:\n" + plan);
+        }
+    }
+}
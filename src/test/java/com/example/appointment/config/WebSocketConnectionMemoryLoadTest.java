@@ -0,0 +1,273 @@
+package com.example.appointment.config;
+
+import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.Notifications.dto.WebSocketNotificationDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Memory held per STOMP session on the native /ws-native endpoint: opens 50k idle sessions,
+ * then 5k more that subscribe to a topic and read a burst of broadcasts, and prints the heap
+ * and direct buffer growth per session of each kind. The clients are bare NIO sockets in this
+ * JVM, so their share of the heap is a few hundred bytes per connection.
+ *
+ * Needs a file descriptor limit above twice the session count (ulimit -n). Clients bind to
+ * 127.0.0.2 and up, as one address runs out of ephemeral ports at ~28k. Override the counts
+ * with -DidleSessions=N and -DactiveSessions=N.
+ * Run with: mvn test -Pbenchmark -Dtest=WebSocketConnectionMemoryLoadTest
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.max-connections=100000")
+class WebSocketConnectionMemoryLoadTest {
+
+    private static final int IDLE = Integer.getInteger("idleSessions", 50_000);
+    private static final int ACTIVE = Integer.getInteger("activeSessions", 5_000);
+    private static final int ROUNDS = 20;
+    private static final int CLIENTS_PER_ADDRESS = 20_000;
+    private static final String TOPIC = "/topic/load";
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<SocketChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        for (SocketChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already closed by the server
+            }
+        }
+    }
+
+    @Test
+    void memoryPerConnection() throws Exception {
+        long maxFds = ((com.sun.management.UnixOperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getMaxFileDescriptorCount();
+        assumeTrue(maxFds > 2L * (IDLE + ACTIVE) + 1000, "ulimit -n is " + maxFds);
+
+        long[] baseline = memory();
+
+        for (int i = 0; i < IDLE; i++) {
+            channels.add(connect(channels.size(), false));
+        }
+        long[] idle = memory();
+
+        Selector selector = Selector.open();
+        for (int i = 0; i < ACTIVE; i++) {
+            SocketChannel channel = connect(channels.size(), true);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new FrameCounter());
+            channels.add(channel);
+        }
+        AtomicLong delivered = new AtomicLong();
+        Thread reader = new Thread(() -> read(selector, delivered), "load-test-reader");
+        reader.start();
+
+        // Every SUBSCRIBE has to reach the broker before the burst starts
+        awaitGauge("websocket.sessions", IDLE + ACTIVE);
+        Thread.sleep(2000);
+
+        WebSocketNotificationDTO dto = new WebSocketNotificationDTO(7L, "Your appointment has been accepted.", null,
+                LocalDateTime.now(), 42L, "patient", NotificationType.ACCEPT);
+        double maxQueueDepth = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            messagingTemplate.convertAndSend(TOPIC, dto);
+            Thread.sleep(100);
+            maxQueueDepth = Math.max(maxQueueDepth, gauge("websocket.session.queue.depth.max"));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (delivered.get() < (long) ACTIVE * ROUNDS && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        long[] active = memory();
+        reader.interrupt();
+        reader.join();
+        selector.close();
+
+        System.out.printf("%-16s %10s %16s %18s%n", "sessions", "count", "heap B/session", "direct B/session");
+        System.out.printf("%-16s %10d %16d %18d%n", "idle", IDLE,
+                (idle[0] - baseline[0]) / IDLE, (idle[1] - baseline[1]) / IDLE);
+        System.out.printf("%-16s %10d %16d %18d%n", "active", ACTIVE,
+                (active[0] - idle[0]) / ACTIVE, (active[1] - idle[1]) / ACTIVE);
+        System.out.printf("delivered %d of %d, max queue depth %.0f, dropped %.0f, limit exceeded %.0f%n",
+                delivered.get(), (long) ACTIVE * ROUNDS, maxQueueDepth,
+                meterRegistry.get("websocket.session.messages.dropped").counter().count(),
+                meterRegistry.get("websocket.session.limit.exceeded").counter().count());
+
+        assertEquals((long) ACTIVE * ROUNDS, delivered.get());
+        assertEquals(0, meterRegistry.get("websocket.session.messages.dropped").counter().count());
+        assertEquals(IDLE + ACTIVE, gauge("websocket.sessions"));
+    }
+
+    // Upgrade, STOMP CONNECT without heartbeats from the client, and optionally SUBSCRIBE
+    private SocketChannel connect(int index, boolean subscribe) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.bind(new InetSocketAddress("127.0.0." + (2 + index / CLIENTS_PER_ADDRESS), 0));
+        channel.connect(new InetSocketAddress("127.0.0.1", port));
+
+        write(channel, ("GET /ws-native HTTP/1.1\r\nHost: 127.0.0.1:" + port + "\r\n" +
+                "Upgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\nSec-WebSocket-Protocol: v12.stomp\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        String response = readUntil(channel, "\r\n\r\n");
+        assertTrue(response.startsWith("HTTP/1.1 101"), response);
+
+        write(channel, frame("CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,10000\n\n\0"));
+        String connected = readUntil(channel, "\0");
+        assertTrue(connected.contains("CONNECTED"), connected);
+
+        if (subscribe) {
+            write(channel, frame("SUBSCRIBE\nid:0\ndestination:" + TOPIC + "\n\n\0"));
+        }
+        return channel;
+    }
+
+    private static void read(Selector selector, AtomicLong delivered) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                selector.select(100);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    buffer.clear();
+                    if (((SocketChannel) key.channel()).read(buffer) < 0) {
+                        key.cancel();
+                        continue;
+                    }
+                    buffer.flip();
+                    delivered.addAndGet(((FrameCounter) key.attachment()).feed(buffer));
+                }
+                selector.selectedKeys().clear();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    // Heap after a full GC, and direct buffers, where Tomcat keeps its socket buffers
+    private static long[] memory() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed).sum();
+        return new long[]{heap, direct};
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (gauge(name) < value) {
+            assertTrue(System.nanoTime() < deadline, name + " is " + gauge(name) + ", expected " + value);
+            Thread.sleep(50);
+        }
+    }
+
+    private static void write(SocketChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String readUntil(SocketChannel channel, String terminator) throws IOException {
+        StringBuilder received = new StringBuilder();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        while (received.indexOf(terminator) < 0) {
+            buffer.clear();
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Closed by server after: " + received);
+            }
+            buffer.flip();
+            received.append(StandardCharsets.ISO_8859_1.decode(buffer));
+        }
+        return received.toString();
+    }
+
+    // A masked text frame, as a client must send; the all-zero mask leaves the payload as is
+    private static byte[] frame(String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + 8);
+        frame.put((byte) 0x81);
+        if (payload.length < 126) {
+            frame.put((byte) (0x80 | payload.length));
+        } else {
+            frame.put((byte) (0x80 | 126)).putShort((short) payload.length);
+        }
+        frame.putInt(0).put(payload);
+        return Arrays.copyOf(frame.array(), frame.position());
+    }
+
+    // Counts the STOMP frames in the server's WebSocket frames, skipping heartbeats ("\n" only)
+    private static final class FrameCounter {
+
+        private final byte[] header = new byte[4];
+        private int headerRead;
+        private int remaining;
+
+        long feed(ByteBuffer buffer) {
+            long frames = 0;
+            while (buffer.hasRemaining()) {
+                if (remaining > 0) {
+                    int skip = Math.min(remaining, buffer.remaining());
+                    buffer.position(buffer.position() + skip);
+                    remaining -= skip;
+                    continue;
+                }
+                header[headerRead++] = buffer.get();
+                int length = header[1] & 0x7F;
+                if (headerRead == 2 && length < 126) {
+                    remaining = length;
+                } else if (headerRead == 4) {
+                    remaining = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+                } else {
+                    continue;
+                }
+                headerRead = 0;
+                if (remaining > 1) {
+                    frames++;
+                }
+            }
+            return frames;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.appointment.config;
+
+import com.example.appointment.Common.enums.NotificationType;
+import com.example.appointment.Notifications.dto.WebSocketNotificationDTO;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Three application nodes sharing one Redis, each a {@link WebSocketPublisher} in redis mode
+ * whose local broker is stood in by a channel recording what it is given. Checks that a
+ * message sent on one node reaches the broker of every node exactly once, then has every node
+ * send at once and prints the fan-out throughput and latency each node sees.
+ *
+ * Needs the Redis from docker-compose; override with -Dredis.host and -Dredis.port.
+ * Run with: mvn test -Pbenchmark -Dtest=WebSocketFanoutMultiNodeTest
+ */
+@Tag("benchmark")
+class WebSocketFanoutMultiNodeTest {
+
+    private static final String REDIS_HOST = System.getProperty("redis.host", "localhost");
+    private static final int REDIS_PORT = Integer.getInteger("redis.port", 7000);
+    private static final int NODES = 3;
+    private static final int MESSAGES_PER_NODE = Integer.getInteger("messages", 20_000);
+    private static final String PROBE = "/topic/probe";
+
+    private final String channel = "test:ws-fanout:" + UUID.randomUUID();
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new Node(channel));
+        }
+        assumeTrue(nodes.get(0).redisReachable(), "Needs Redis at " + REDIS_HOST + ":" + REDIS_PORT);
+        for (Node node : nodes) {
+            node.start();
+        }
+        awaitSubscribed();
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(Node::close);
+    }
+
+    @Test
+    void messagesReachSessionsOnEveryNode() throws InterruptedException {
+        WebSocketNotificationDTO dto = new WebSocketNotificationDTO(7L, "Your appointment has been accepted.", null,
+                LocalDateTime.now(), 42L, "patient", NotificationType.ACCEPT);
+        nodes.get(0).publisher.sendToUser("42", "/queue/notifications", dto);
+        nodes.get(1).publisher.send("/topic/notifications", "clinic closed tomorrow");
+
+        for (Node node : nodes) {
+            node.awaitCount(2);
+        }
+        // Give a duplicate time to show up
+        Thread.sleep(200);
+        for (Node node : nodes) {
+            assertEquals(2, node.channel.count.get(), "messages on one node");
+
+            Message<?> userMessage = node.channel.find("/user/42/queue/notifications");
+            assertNotNull(userMessage, "user message missing on a node");
+            assertEquals("application/json", contentType(userMessage));
+            String json = new String((byte[]) userMessage.getPayload());
+            assertTrue(json.contains("\"userId\":42") && json.contains("accepted"), json);
+
+            Message<?> topicMessage = node.channel.find("/topic/notifications");
+            assertNotNull(topicMessage, "topic message missing on a node");
+            assertTrue(contentType(topicMessage).startsWith("text/plain"));
+            assertEquals("clinic closed tomorrow", new String((byte[]) topicMessage.getPayload()));
+        }
+    }
+
+    @Test
+    void fanoutThroughputPerNode() throws InterruptedException {
+        WebSocketNotificationDTO dto = new WebSocketNotificationDTO(7L, "Your appointment has been accepted.", null,
+                LocalDateTime.now(), 42L, "patient", NotificationType.ACCEPT);
+        nodes.forEach(node -> node.channel.keep = false);
+        // Probes already received
+        double[] receivedBefore = nodes.stream().mapToDouble(Node::received).toArray();
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (Node node : nodes) {
+            Thread sender = new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_NODE; i++) {
+                    node.publisher.sendToUser(Long.toString(i % 1000), "/queue/notifications", dto);
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        long expected = (long) NODES * MESSAGES_PER_NODE;
+        System.out.printf("%-6s %12s %12s %14s %10s %10s%n", "node", "published", "received", "received/s", "p50 ms", "p99 ms");
+        for (int i = 0; i < NODES; i++) {
+            Node node = nodes.get(i);
+            node.awaitCount(expected);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double received = node.received() - receivedBefore[i];
+            ValueAtPercentile[] latency = node.registry.get("websocket.fanout.latency").timer().takeSnapshot().percentileValues();
+            System.out.printf("%-6d %12.0f %12.0f %14.0f %10.1f %10.1f%n", i,
+                    node.registry.get("websocket.fanout.published").counter().count(), received, received / seconds,
+                    latency[0].value(TimeUnit.MILLISECONDS), latency[1].value(TimeUnit.MILLISECONDS));
+
+            assertEquals(expected, node.channel.count.get());
+            assertEquals((double) (NODES - 1) * MESSAGES_PER_NODE, received);
+        }
+    }
+
+    // Subscriptions are made asynchronously; probe until every node has heard from another one
+    private void awaitSubscribed() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (nodes.stream().anyMatch(node -> node.received() == 0)) {
+            assertTrue(System.nanoTime() < deadline, "Nodes did not subscribe to " + channel);
+            nodes.get(0).publisher.send(PROBE, "probe");
+            nodes.get(1).publisher.send(PROBE, "probe");
+            Thread.sleep(50);
+        }
+        // Let probes still in flight land before anything is counted
+        Thread.sleep(200);
+    }
+
+    private static String contentType(Message<?> message) {
+        return String.valueOf(message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+
+    private static final class Node {
+
+        final CapturingChannel channel = new CapturingChannel();
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final LettuceConnectionFactory connectionFactory;
+        final RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+        final WebSocketPublisher publisher;
+
+        Node(String channelName) {
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(REDIS_HOST, REDIS_PORT));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            listenerContainer.setConnectionFactory(connectionFactory);
+
+            // The converters the broker configuration registers
+            SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(channel);
+            messagingTemplate.setMessageConverter(new CompositeMessageConverter(List.of(
+                    new StringMessageConverter(), new ByteArrayMessageConverter(), new JacksonJsonMessageConverter())));
+
+            publisher = new WebSocketPublisher(messagingTemplate, new StringRedisTemplate(connectionFactory),
+                    listenerContainer, registry, "redis", channelName);
+        }
+
+        double received() {
+            return registry.get("websocket.fanout.received").counter().count();
+        }
+
+        boolean redisReachable() {
+            try (var connection = connectionFactory.getConnection()) {
+                return "PONG".equals(connection.ping());
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        void start() {
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+            publisher.subscribe();
+        }
+
+        void awaitCount(long count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+            while (channel.count.get() < count) {
+                assertTrue(System.nanoTime() < deadline, "Only " + channel.count.get() + " of " + count + " messages arrived");
+                Thread.sleep(10);
+            }
+        }
+
+        void close() {
+            try {
+                publisher.unsubscribe();
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                // Redis was not reachable
+            }
+            connectionFactory.destroy();
+        }
+    }
+
+    // Stands in for a node's broker channel; the subscription probes are not counted
+    private static final class CapturingChannel implements MessageChannel {
+
+        final Queue<Message<?>> messages = new ConcurrentLinkedQueue<>();
+        final AtomicLong count = new AtomicLong();
+        volatile boolean keep = true;
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            if (PROBE.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+                return true;
+            }
+            count.incrementAndGet();
+            if (keep) {
+                messages.add(message);
+            }
+            return true;
+        }
+
+        Message<?> find(String destination) {
+            return messages.stream()
+                    .filter(m -> destination.equals(SimpMessageHeaderAccessor.getDestination(m.getHeaders())))
+                    .findFirst().orElse(null);
+        }
+    }
+}